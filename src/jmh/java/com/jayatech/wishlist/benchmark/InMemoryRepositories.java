@@ -0,0 +1,90 @@
+package com.jayatech.wishlist.benchmark;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.repository.ProductRepository;
+import com.jayatech.wishlist.domain.repository.WishlistRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stand-ins for the Mongo repositories backed by maps, answering only the methods the services call.
+ * Item mutations return the resulting wishlist without storing it, so every benchmark invocation
+ * runs against the same state.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static ProductRepository products(Map<String, Product> products) {
+        return proxy(ProductRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(products.get((String) args[0]));
+            case "findAllById" -> StreamSupport.stream(((Iterable<?>) args[0]).spliterator(), false)
+                    .map(products::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    static WishlistRepository wishlists(Map<String, Wishlist> wishlists) {
+        return proxy(WishlistRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(wishlists.get((String) args[0])).map(InMemoryRepositories::copyOf);
+            case "existsById" -> wishlists.containsKey((String) args[0]);
+            case "findProductIdsById" -> Optional.ofNullable(wishlists.get((String) args[0])).map(wishlist ->
+                    wishlist.getWishListItems().stream().map(item -> item.getProduct().getId()).collect(Collectors.toSet()));
+            case "pushItem" -> push(wishlists.get((String) args[0]), (WishListItem) args[1], (int) args[2]);
+            case "replaceItems" -> replace(wishlists.get((String) args[0]), (List<?>) args[1]);
+            case "pullItem" -> pull(wishlists.get((String) args[0]), (String) args[1]);
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static Optional<Wishlist> push(Wishlist wishlist, WishListItem item, int maxSize) {
+        if (Objects.isNull(wishlist) || wishlist.getWishListItems().size() >= maxSize
+                || wishlist.getWishListItems().stream().anyMatch(stored -> stored.getProduct().getId().equals(item.getProduct().getId()))) {
+            return Optional.empty();
+        }
+        Wishlist updated = copyOf(wishlist);
+        updated.getWishListItems().add(item);
+        return Optional.of(updated);
+    }
+
+    private static Optional<Wishlist> pull(Wishlist wishlist, String wishListItemId) {
+        if (Objects.isNull(wishlist) || wishlist.getWishListItems().stream().noneMatch(item -> item.getId().equals(wishListItemId))) {
+            return Optional.empty();
+        }
+        Wishlist updated = copyOf(wishlist);
+        updated.getWishListItems().removeIf(item -> item.getId().equals(wishListItemId));
+        return Optional.of(updated);
+    }
+
+    private static Optional<Wishlist> replace(Wishlist wishlist, List<?> items) {
+        if (Objects.isNull(wishlist)) {
+            return Optional.empty();
+        }
+        Wishlist updated = copyOf(wishlist);
+        updated.setWishListItems(items.stream().map(WishListItem.class::cast).collect(Collectors.toCollection(ArrayList::new)));
+        return Optional.of(updated);
+    }
+
+    private static Wishlist copyOf(Wishlist wishlist) {
+        List<WishListItem> items = new ArrayList<>(wishlist.getWishListItems().size() + 1);
+        items.addAll(wishlist.getWishListItems());
+        return new Wishlist(wishlist.getId(), wishlist.getUserId(), wishlist.getCreatedAt(), wishlist.getUpdatedAt(), items, wishlist.getVersion());
+    }
+
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                method.getDeclaringClass() == Object.class ? method.invoke(handler, args) : handler.handle(method.getName(), args)));
+    }
+}
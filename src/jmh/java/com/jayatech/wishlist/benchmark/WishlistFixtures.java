@@ -0,0 +1,56 @@
+package com.jayatech.wishlist.benchmark;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Products and a wishlist holding the first of them, shaped like the seeded data.
+ */
+final class WishlistFixtures {
+
+    static final String WISHLIST_ID = "wishlistId1";
+
+    private WishlistFixtures() {
+    }
+
+    static Map<String, Product> products(int count) {
+        Map<String, Product> products = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format("6518691eb39160509735%04x", i);
+            products.put(id, Product.builder()
+                    .id(id)
+                    .name("Product " + i)
+                    .price(BigDecimal.valueOf(10 + i, 2))
+                    .description("Description of the product " + i)
+                    .build());
+        }
+        return products;
+    }
+
+    static Wishlist wishlist(List<Product> products) {
+        Instant createdAt = Instant.parse("2024-01-01T00:00:00Z");
+        List<WishListItem> items = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            items.add(WishListItem.builder()
+                    .id("wishListItemId" + i)
+                    .createdAt(createdAt.plusSeconds(i))
+                    .product(products.get(i))
+                    .build());
+        }
+        return Wishlist.builder()
+                .id(WISHLIST_ID)
+                .userId("6518691eb39160509735ec5a")
+                .createdAt(createdAt)
+                .updatedAt(createdAt.plusSeconds(products.size()))
+                .wishListItems(items)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.jayatech.wishlist.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON serialization of a hydrated Wishlist, as written by GET /wishlist/{wishlistId}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WishlistSerializationBenchmark {
+
+    @Param({"0", "10", "20"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private Wishlist wishlist;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Product> products = new ArrayList<>(WishlistFixtures.products(size).values());
+        wishlist = WishlistFixtures.wishlist(products);
+    }
+
+    @Benchmark
+    public byte[] serializeWishlist() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(wishlist);
+    }
+}
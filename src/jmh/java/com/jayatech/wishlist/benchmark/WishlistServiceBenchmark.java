@@ -0,0 +1,105 @@
+package com.jayatech.wishlist.benchmark;
+
+import com.jayatech.wishlist.config.CacheConfig;
+import com.jayatech.wishlist.config.WishlistCacheProperties;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResponse;
+import com.jayatech.wishlist.domain.service.ProductService;
+import com.jayatech.wishlist.domain.service.WishlistService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the WishlistService paths behind each endpoint against in-memory repositories,
+ * so the numbers only cover the service logic and the caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WishlistServiceBenchmark {
+
+    @Param({"1", "10", "19"})
+    private int size;
+
+    @Param({"false"})
+    private boolean wishlistCache;
+
+    private WishlistService wishlistService;
+
+    private Wishlist wishlist;
+
+    private String lastProductId;
+
+    private String absentProductId;
+
+    @Setup
+    public void setUp() {
+        Map<String, Product> products = WishlistFixtures.products(WishlistService.WISHLIST_MAX_SIZE + 1);
+        List<Product> catalog = new ArrayList<>(products.values());
+        wishlist = WishlistFixtures.wishlist(catalog.subList(0, size));
+        lastProductId = catalog.get(size - 1).getId();
+        absentProductId = catalog.get(catalog.size() - 1).getId();
+
+        WishlistCacheProperties properties = new WishlistCacheProperties();
+        properties.getWishlists().setEnabled(wishlistCache);
+        CacheManager cacheManager = new CacheConfig().cacheManager(properties);
+        ProductService productService = new ProductService(InMemoryRepositories.products(products), cacheManager);
+        wishlistService = new WishlistService(InMemoryRepositories.wishlists(Map.of(WishlistFixtures.WISHLIST_ID, wishlist)),
+                productService, cacheManager, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public Wishlist findById() {
+        return wishlistService.findById(WishlistFixtures.WISHLIST_ID);
+    }
+
+    @Benchmark
+    public Product hasProductInWishlist() {
+        return wishlistService.hasProductInWishlist(wishlist, lastProductId);
+    }
+
+    @Benchmark
+    public Wishlist validateProduct() {
+        wishlistService.validateProduct(wishlist, absentProductId);
+        return wishlist;
+    }
+
+    @Benchmark
+    public ProductCheckResponse checkProduct() {
+        return wishlistService.checkProduct(wishlist, lastProductId);
+    }
+
+    @Benchmark
+    public Wishlist updateWishList() {
+        return wishlistService.updateWishList(WishlistFixtures.WISHLIST_ID, absentProductId);
+    }
+
+    /**
+     * Removes an item and adds a product in one call, to compare with a call to each single item path
+     */
+    @Benchmark
+    public WishlistBatchResponse updateWishListItems() {
+        return wishlistService.updateWishListItems(WishlistFixtures.WISHLIST_ID, WishlistBatchRequest.builder()
+                .remove(List.of("wishListItemId0"))
+                .add(List.of(absentProductId))
+                .build(), null);
+    }
+
+    @Benchmark
+    public String removeWishListProduct() {
+        wishlistService.removeWishListProduct(WishlistFixtures.WISHLIST_ID, "wishListItemId0");
+        return WishlistFixtures.WISHLIST_ID;
+    }
+}
@@ -0,0 +1,66 @@
+package com.jayatech.wishlist.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the latencies and status codes of one endpoint during a run.
+ * Latencies are measured from the moment the request was scheduled, not sent,
+ * so a slow server cannot hide its queueing delay by holding the load back.
+ */
+class LatencyRecorder {
+
+    private final String endpoint;
+
+    private final List<Long> latencies = new ArrayList<>();
+
+    private int errors;
+
+    LatencyRecorder(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    synchronized void record(long latencyNanos, int status) {
+        latencies.add(latencyNanos);
+        if (status >= 500 || status == 0) {
+            errors++;
+        }
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Summarises the run
+     *
+     * @param seconds is the length of the measured run
+     * @return the request count, error count, throughput in requests per second and p50/p95/p99 in milliseconds
+     */
+    synchronized Map<String, Object> report(double seconds) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        sorted.sort(Long::compare);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", sorted.size());
+        report.put("errors", errors);
+        report.put("throughput", round(sorted.size() / seconds));
+        report.put("p50Ms", round(percentile(sorted, 0.50) / 1e6));
+        report.put("p95Ms", round(percentile(sorted, 0.95) / 1e6));
+        report.put("p99Ms", round(percentile(sorted, 0.99) / 1e6));
+        return report;
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
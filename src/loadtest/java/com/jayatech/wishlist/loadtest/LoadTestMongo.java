@@ -0,0 +1,62 @@
+package com.jayatech.wishlist.loadtest;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The Mongo the load tests run against, chosen by -Dloadtest.mongo: container (default), embedded or a mongodb:// uri.
+ */
+class LoadTestMongo {
+
+    static final String MODE = System.getProperty("loadtest.mongo", "container");
+
+    private MongoDBContainer mongoDBContainer;
+
+    private MongoServer mongoServer;
+
+    /**
+     * Starts the Mongo, unless it is a local server
+     *
+     * @return the application properties pointing to it
+     */
+    Map<String, String> start() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        if ("container".equals(MODE)) {
+            mongoDBContainer = new MongoDBContainer("mongo:6.0").withExposedPorts(27017);
+            mongoDBContainer.start();
+            properties.put("spring.data.mongodb.uri", mongoDBContainer.getReplicaSetUrl());
+        } else if ("embedded".equals(MODE)) {
+            mongoServer = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = mongoServer.bind();
+            properties.put("spring.data.mongodb.uri",
+                    "mongodb://" + address.getHostString() + ":" + address.getPort() + "/wishlist-db");
+            //The in-memory server does not explain queries.
+            properties.put("wishlist.index-audit.enabled", "false");
+        } else {
+            properties.put("spring.data.mongodb.uri", MODE);
+        }
+        return properties;
+    }
+
+    void stop() {
+        if (Objects.nonNull(mongoDBContainer)) {
+            mongoDBContainer.stop();
+        }
+        if (Objects.nonNull(mongoServer)) {
+            mongoServer.shutdown();
+        }
+    }
+
+    /**
+     * Names the baselines after the Mongo in use, since their latencies are not comparable
+     */
+    static String baselineSuffix() {
+        return "container".equals(MODE) || "embedded".equals(MODE) ? MODE : "local";
+    }
+}
@@ -0,0 +1,205 @@
+package com.jayatech.wishlist.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jayatech.wishlist.WishlistApiApplication;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the Tomcat worker pool with virtual threads (wishlist.virtual-threads.enabled) at high concurrency.
+ * The application is started once per mode, and a closed loop of concurrent clients reads wishlists and checks
+ * products for a while. Throughput, latencies, peak platform threads and peak heap of each mode are written
+ * to target/loadtest/threading.json. Virtual threads need Java 21, on older JVMs only the worker pool is measured.
+ *
+ * <ul>
+ *     <li>-Dloadtest.mongo=container (default), embedded or a mongodb:// uri of a local server</li>
+ *     <li>-Dloadtest.concurrency is the number of clients waiting on a response at any time</li>
+ *     <li>-Dloadtest.duration and -Dloadtest.warmup, in seconds, of each mode</li>
+ *     <li>-Dloadtest.max-error-rate is the accepted share of failed responses of each mode</li>
+ * </ul>
+ */
+@Slf4j
+class ThreadingModeLoadTest {
+
+    private static final Path REPORT = Path.of("target/loadtest/threading.json");
+    private static final int WISHLISTS = 16;
+    private static final int ITEMS = 10;
+
+    private static LoadTestMongo mongo;
+
+    private static Map<String, String> mongoProperties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @BeforeAll
+    static void startMongo() {
+        mongo = new LoadTestMongo();
+        mongoProperties = mongo.start();
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongo.stop();
+    }
+
+    @Test
+    @SneakyThrows
+    void compareThreadingModes() {
+        int concurrency = Integer.parseInt(System.getProperty("loadtest.concurrency", "1000"));
+        int warmup = Integer.parseInt(System.getProperty("loadtest.warmup", "10"));
+        int duration = Integer.parseInt(System.getProperty("loadtest.duration", "30"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.05"));
+
+        Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+        report.put("platform", this.measure(false, concurrency, warmup, duration));
+        if (Runtime.version().feature() >= 21) {
+            report.put("virtual", this.measure(true, concurrency, warmup, duration));
+        } else {
+            log.warn("Virtual threads need Java 21, running on {}, only the worker pool was measured", Runtime.version().feature());
+        }
+        Files.createDirectories(REPORT.getParent());
+        objectMapper.writeValue(REPORT.toFile(), report);
+        report.forEach((mode, values) -> log.info(String.format("%-10s %s", mode, values)));
+
+        report.forEach((mode, values) -> {
+            int requests = ((Number) values.get("requests")).intValue();
+            int errors = ((Number) values.get("errors")).intValue();
+            assertTrue(requests > 0 && errors <= requests * maxErrorRate,
+                    mode + " had " + errors + " errors out of " + requests + " requests");
+        });
+    }
+
+    /**
+     * Starts the application in a threading mode and drives it with a closed loop of clients
+     *
+     * @param virtualThreads is whether Tomcat runs requests on virtual threads
+     * @param concurrency is the number of clients
+     * @param warmup is how long the clients run before measuring, in seconds
+     * @param duration is how long the clients are measured, in seconds
+     * @return the latencies and throughput of the run, with the peak platform threads and heap seen during it
+     */
+    @SneakyThrows
+    private Map<String, Object> measure(boolean virtualThreads, int concurrency, int warmup, int duration) {
+        Map<String, Object> properties = new LinkedHashMap<>(mongoProperties);
+        properties.put("server.port", "0");
+        properties.put("wishlist.virtual-threads.enabled", String.valueOf(virtualThreads));
+        //Cached wishlists would answer without waiting on Mongo, which is what the threading modes differ on.
+        properties.put("wishlist.cache.wishlists.enabled", "false");
+        //Logging every request over the command threshold would measure the logger.
+        properties.put("wishlist.mongo.instrumentation.commands-per-request-warning", String.valueOf(Integer.MAX_VALUE));
+        ConfigurableApplicationContext application = new SpringApplicationBuilder(WishlistApiApplication.class)
+                .run(properties.entrySet().stream().map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(8);
+        HttpClient httpClient = HttpClient.newBuilder().executor(clientExecutor).build();
+        try {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort();
+            List<String> paths = this.createWishlists(httpClient, baseUrl);
+
+            this.run(httpClient, baseUrl, paths, concurrency, warmup, new LatencyRecorder("warmup"));
+            System.gc();
+            threads.resetPeakThreadCount();
+            LatencyRecorder recorder = new LatencyRecorder(virtualThreads ? "virtual" : "platform");
+            AtomicLong peakHeap = new AtomicLong();
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+            sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                    0, 100, TimeUnit.MILLISECONDS);
+            this.run(httpClient, baseUrl, paths, concurrency, duration, recorder);
+            sampler.shutdownNow();
+
+            Map<String, Object> report = new LinkedHashMap<>(recorder.report(duration));
+            report.put("peakPlatformThreads", threads.getPeakThreadCount());
+            report.put("peakHeapMb", peakHeap.get() / (1024 * 1024));
+            return report;
+        } finally {
+            clientExecutor.shutdownNow();
+            application.close();
+        }
+    }
+
+    /**
+     * Keeps a number of requests in flight for a while, each client sending its next request once answered
+     */
+    @SneakyThrows
+    private void run(HttpClient httpClient, String baseUrl, List<String> paths, int concurrency, int seconds, LatencyRecorder recorder) {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch stopped = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            this.sendNext(httpClient, baseUrl, paths, recorder, running, stopped);
+        }
+        TimeUnit.SECONDS.sleep(seconds);
+        running.set(false);
+        stopped.await(30, TimeUnit.SECONDS);
+    }
+
+    private void sendNext(HttpClient httpClient, String baseUrl, List<String> paths, LatencyRecorder recorder,
+                          AtomicBoolean running, CountDownLatch stopped) {
+        if (!running.get()) {
+            stopped.countDown();
+            return;
+        }
+        long sent = System.nanoTime();
+        String path = paths.get(ThreadLocalRandom.current().nextInt(paths.size()));
+        httpClient.sendAsync(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    recorder.record(System.nanoTime() - sent, Objects.nonNull(response) ? response.statusCode() : 0);
+                    this.sendNext(httpClient, baseUrl, paths, recorder, running, stopped);
+                });
+    }
+
+    /**
+     * Creates wishlists holding a few products
+     *
+     * @return the read and check paths the clients pick from
+     */
+    @SneakyThrows
+    private List<String> createWishlists(HttpClient httpClient, String baseUrl) {
+        HttpResponse<String> products = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/products?size=" + ITEMS)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<String> productIds = new ArrayList<>();
+        objectMapper.readTree(products.body()).forEach(product -> productIds.add(product.path("id").asText()));
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < WISHLISTS; i++) {
+            HttpResponse<String> created = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/wishlist"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"userId\":\"" + UUID.randomUUID() + "\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            String wishlistId = objectMapper.readTree(created.body()).path("id").asText();
+            for (String productId : productIds) {
+                httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/wishlist/" + wishlistId + "/items/" + productId))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(), HttpResponse.BodyHandlers.discarding());
+            }
+            paths.add("/wishlist/" + wishlistId);
+            paths.add("/wishlist/" + wishlistId + "/check/" + productIds.get(i % productIds.size()));
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,258 @@
+package com.jayatech.wishlist.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the wishlist and product endpoints at fixed rates with a read and check heavy mix,
+ * while items are concurrently added to and removed from the same shared wishlists.
+ * The percentiles and throughput of each endpoint are written to target/loadtest/report.json
+ * and compared with the baseline stored for the Mongo in use, since their latencies are not comparable.
+ *
+ * <ul>
+ *     <li>-Dloadtest.mongo=container (default), embedded or a mongodb:// uri of a local server</li>
+ *     <li>-Dloadtest.duration and -Dloadtest.warmup, in seconds</li>
+ *     <li>-Dloadtest.rate-factor multiplies every rate of the profile</li>
+ *     <li>-Dloadtest.tolerance is the accepted regression over the baseline, 1.0 meaning twice the baseline</li>
+ *     <li>-Dloadtest.max-error-rate is the accepted share of 5xx responses of each endpoint</li>
+ *     <li>-Dloadtest.update-baseline=true stores this run as the new baseline</li>
+ * </ul>
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WishlistLoadTest {
+
+    private static final String BASELINE = "loadtest/baseline-" + LoadTestMongo.baselineSuffix() + ".json";
+    private static final Path BASELINE_SOURCE = Path.of("src/loadtest/resources", BASELINE);
+    private static final Path REPORT = Path.of("target/loadtest/report.json");
+    private static final int SHARED_WISHLISTS = 4;
+    private static final int PREFILLED_ITEMS = 10;
+    private static final double MIN_SLACK_MS = 5.0;
+    private static final double MAX_THROUGHPUT_DROP = 0.1;
+
+    private static final String GET_WISHLIST = "GET /wishlist/{wishlistId}";
+    private static final String CHECK_PRODUCT = "GET /wishlist/{wishlistId}/check/{productId}";
+    private static final String CHECK_PRODUCTS = "GET /wishlist/{wishlistId}/check";
+    private static final String GET_PRODUCTS = "GET /products";
+    private static final String ADD_ITEM = "POST /wishlist/{wishlistId}/items/{productId}";
+    private static final String REMOVE_ITEM = "DELETE /wishlist/{wishlistId}/items/{itemId}";
+
+    private static LoadTestMongo mongo;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(32))
+            .build();
+
+    @LocalServerPort
+    private int port;
+
+    private final List<String> wishlistIds = new ArrayList<>();
+
+    private final List<String> productIds = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void mongoDbProperties(DynamicPropertyRegistry registry) {
+        mongo = new LoadTestMongo();
+        mongo.start().forEach((name, value) -> registry.add(name, () -> value));
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongo.stop();
+    }
+
+    @Test
+    @SneakyThrows
+    void loadProfile() {
+        this.createSharedWishlists();
+        double rateFactor = Double.parseDouble(System.getProperty("loadtest.rate-factor", "1"));
+        int warmup = Integer.parseInt(System.getProperty("loadtest.warmup", "10"));
+        int duration = Integer.parseInt(System.getProperty("loadtest.duration", "30"));
+
+        this.run(warmup, rateFactor);
+        Map<String, LatencyRecorder> recorders = this.run(duration, rateFactor);
+
+        Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+        recorders.values().forEach(recorder -> report.put(recorder.getEndpoint(), recorder.report(duration)));
+        Files.createDirectories(REPORT.getParent());
+        objectMapper.writeValue(REPORT.toFile(), report);
+        report.forEach((endpoint, values) -> log.info(String.format("%-48s %s", endpoint, values)));
+
+        if (Boolean.getBoolean("loadtest.update-baseline")) {
+            objectMapper.writeValue(BASELINE_SOURCE.toFile(), report);
+            log.info("Baseline updated at {}", BASELINE_SOURCE);
+            return;
+        }
+        List<String> regressions = this.compareWithBaseline(report);
+        assertTrue(regressions.isEmpty(), "Regressions over " + BASELINE + ": " + regressions);
+    }
+
+    /**
+     * Runs the load profile for a while, each endpoint at its own fixed rate
+     *
+     * @param seconds is how long the profile runs
+     * @param rateFactor multiplies every rate
+     * @return the recorders of each endpoint
+     */
+    @SneakyThrows
+    private Map<String, LatencyRecorder> run(int seconds, double rateFactor) {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        for (String endpoint : List.of(GET_WISHLIST, CHECK_PRODUCT, CHECK_PRODUCTS, GET_PRODUCTS, ADD_ITEM, REMOVE_ITEM)) {
+            recorders.put(endpoint, new LatencyRecorder(endpoint));
+        }
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        List<CompletableFuture<?>> pending = new CopyOnWriteArrayList<>();
+        this.schedule(scheduler, pending, 60 * rateFactor, () -> this.send(recorders.get(GET_WISHLIST),
+                "GET", "/wishlist/" + this.anyWishlist()));
+        this.schedule(scheduler, pending, 40 * rateFactor, () -> this.send(recorders.get(CHECK_PRODUCT),
+                "GET", "/wishlist/" + this.anyWishlist() + "/check/" + this.anyProduct()));
+        this.schedule(scheduler, pending, 20 * rateFactor, () -> this.send(recorders.get(CHECK_PRODUCTS),
+                "GET", "/wishlist/" + this.anyWishlist() + "/check?productIds=" + String.join(",", productIds.subList(0, 5))));
+        this.schedule(scheduler, pending, 10 * rateFactor, () -> this.send(recorders.get(GET_PRODUCTS),
+                "GET", "/products?size=20"));
+        this.schedule(scheduler, pending, 10 * rateFactor, () -> this.addThenRemove(recorders.get(ADD_ITEM), recorders.get(REMOVE_ITEM)));
+        TimeUnit.SECONDS.sleep(seconds);
+        scheduler.shutdownNow();
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).exceptionally(e -> null).get(30, TimeUnit.SECONDS);
+        return recorders;
+    }
+
+    private void schedule(ScheduledExecutorService scheduler, List<CompletableFuture<?>> pending, double rate,
+                          Supplier<CompletableFuture<?>> request) {
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        scheduler.scheduleAtFixedRate(() -> {
+            CompletableFuture<?> future = request.get();
+            pending.add(future);
+            future.whenComplete((result, error) -> pending.remove(future));
+        }, 0, period, TimeUnit.NANOSECONDS);
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(LatencyRecorder recorder, String method, String path) {
+        long scheduled = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) ->
+                recorder.record(System.nanoTime() - scheduled, Objects.nonNull(response) ? response.statusCode() : 0));
+    }
+
+    /**
+     * Adds a product to a shared wishlist and removes the created item, racing the other adds and removes on that list
+     */
+    private CompletableFuture<?> addThenRemove(LatencyRecorder added, LatencyRecorder removed) {
+        String wishlistId = this.anyWishlist();
+        String productId = productIds.get(PREFILLED_ITEMS + ThreadLocalRandom.current().nextInt(productIds.size() - PREFILLED_ITEMS));
+        return this.send(added, "POST", "/wishlist/" + wishlistId + "/items/" + productId).thenCompose(response -> {
+            Optional<String> itemId = response.statusCode() == 201 ? this.itemIdOf(response.body(), productId) : Optional.empty();
+            return itemId.<CompletableFuture<?>>map(id -> this.send(removed, "DELETE", "/wishlist/" + wishlistId + "/items/" + id))
+                    .orElseGet(() -> CompletableFuture.completedFuture(null));
+        });
+    }
+
+    @SneakyThrows
+    private Optional<String> itemIdOf(String wishlist, String productId) {
+        for (JsonNode item : objectMapper.readTree(wishlist).path("wishListItems")) {
+            if (productId.equals(item.path("product").path("id").asText())) {
+                return Optional.of(item.path("id").asText());
+            }
+        }
+        return Optional.empty();
+    }
+
+    @SneakyThrows
+    private void createSharedWishlists() {
+        HttpResponse<String> products = httpClient.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/products?size=100")).build(), HttpResponse.BodyHandlers.ofString());
+        objectMapper.readTree(products.body()).forEach(product -> productIds.add(product.path("id").asText()));
+        for (int i = 0; i < SHARED_WISHLISTS; i++) {
+            HttpResponse<String> created = httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/wishlist"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"userId\":\"" + UUID.randomUUID() + "\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            String wishlistId = objectMapper.readTree(created.body()).path("id").asText();
+            for (String productId : productIds.subList(0, PREFILLED_ITEMS)) {
+                httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/wishlist/" + wishlistId + "/items/" + productId))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(), HttpResponse.BodyHandlers.discarding());
+            }
+            wishlistIds.add(wishlistId);
+        }
+    }
+
+    /**
+     * Compares the run with the baseline. The p95 may grow up to the tolerance, with a small absolute slack
+     * so sub-millisecond baselines do not fail on noise, and the throughput must keep up with the fixed rates.
+     * The p99 is reported but not compared, since a run holds too few samples above it to be stable.
+     *
+     * @param report is the report of this run
+     * @return a description of each regression
+     */
+    @SneakyThrows
+    private List<String> compareWithBaseline(Map<String, Map<String, Object>> report) {
+        List<String> regressions = new ArrayList<>();
+        InputStream stored = getClass().getClassLoader().getResourceAsStream(BASELINE);
+        if (Objects.isNull(stored)) {
+            log.warn("No baseline found at {}, run with -Dloadtest.update-baseline=true to store one", BASELINE);
+            return regressions;
+        }
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "1.0"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.05"));
+        Map<String, Map<String, Double>> baseline = objectMapper.readValue(stored, new TypeReference<>() {
+        });
+        report.forEach((endpoint, values) -> {
+            Map<String, Double> expected = baseline.get(endpoint);
+            if (Objects.isNull(expected)) {
+                return;
+            }
+            double p95 = ((Number) values.get("p95Ms")).doubleValue();
+            double maxP95 = Math.max(expected.get("p95Ms") * (1 + tolerance), expected.get("p95Ms") + MIN_SLACK_MS);
+            if (p95 > maxP95) {
+                regressions.add(endpoint + " p95 " + p95 + "ms over " + maxP95 + "ms");
+            }
+            double throughput = ((Number) values.get("throughput")).doubleValue();
+            double minThroughput = expected.get("throughput") * (1 - MAX_THROUGHPUT_DROP);
+            if (throughput < minThroughput) {
+                regressions.add(endpoint + " throughput " + throughput + "/s under " + minThroughput + "/s");
+            }
+            int requests = ((Number) values.get("requests")).intValue();
+            int errors = ((Number) values.get("errors")).intValue();
+            if (requests > 0 && errors > requests * maxErrorRate) {
+                regressions.add(endpoint + " " + errors + " errors out of " + requests + " requests");
+            }
+        });
+        return regressions;
+    }
+
+    private String anyWishlist() {
+        return wishlistIds.get(ThreadLocalRandom.current().nextInt(wishlistIds.size()));
+    }
+
+    private String anyProduct() {
+        return productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+    }
+}
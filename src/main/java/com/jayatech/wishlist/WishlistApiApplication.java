@@ -3,8 +3,10 @@ package com.jayatech.wishlist;
 import io.mongock.runner.springboot.EnableMongock;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableMongock
+@EnableScheduling
 @SpringBootApplication
 public class WishlistApiApplication {
 
@@ -0,0 +1,123 @@
+package com.jayatech.wishlist.api.controller;
+
+import com.jayatech.wishlist.domain.exception.PreconditionFailedException;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.dto.WishlistView;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import static com.jayatech.wishlist.domain.service.WishlistService.WISHLIST_VERSION_MISMATCH_EXCEPTION_MESSAGE;
+
+/**
+ * Strong entity tags of the served resources, shared by the blocking and the reactive controllers.
+ * They are computed from what the services already hold, so a conditional GET answered with 304
+ * never loads nor serializes the body.
+ */
+final class ETags {
+
+    private static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private static final String VIEW_SEPARATOR = "-";
+
+    private ETags() {
+    }
+
+    /**
+     * The tag of a wishlist is its version, which every write to the wishlist increments
+     *
+     * @param version is the wishlist version, null on a wishlist never written since the version exists
+     * @return the quoted tag
+     */
+    static String ofWishlist(Long version) {
+        return quote(String.valueOf(Objects.nonNull(version) ? version : 0L));
+    }
+
+    /**
+     * The tag of a view of a wishlist. Each view is a different representation of the same version,
+     * so the compact and ids views append their name to it.
+     *
+     * @param version is the wishlist version, null on a wishlist never written since the version exists
+     * @param view is the served view
+     * @return the quoted tag
+     */
+    static String ofWishlist(Long version, WishlistView view) {
+        if (view == WishlistView.FULL) {
+            return ofWishlist(version);
+        }
+        return quote((Objects.nonNull(version) ? version : 0L) + VIEW_SEPARATOR + view.tag());
+    }
+
+    /**
+     * The tag of a product is a digest of its fields, as products are written outside the api without a version
+     *
+     * @param product is the stored product
+     * @return the quoted tag
+     */
+    static String ofProduct(Product product) {
+        String fields = product.getId() + '\u0000' + product.getName() + '\u0000' + product.getPrice() + '\u0000' + product.getDescription();
+        return quote(DigestUtils.md5DigestAsHex(fields.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Compares the tags of an If-None-Match header with the current one.
+     * The comparison is weak, as the header asks for, so a W/ prefix is ignored.
+     *
+     * @param ifNoneMatch is the header value, a list of tags or *
+     * @param eTag is the current quoted tag
+     * @return true when the client holds the current representation
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (Objects.isNull(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(WEAK_PREFIX)) {
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals(ANY) || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the wishlist version a mutation is conditioned on from an If-Match header holding a single tag.
+     * The comparison is strong, as the header asks for, so a weak tag never matches.
+     * The tag of any view names the version, so it is accepted as well.
+     *
+     * @param ifMatch is the header value
+     * @return the expected version, or null when there is no header or it is *
+     * @throws PreconditionFailedException when the header is not the tag of a wishlist version
+     */
+    static Long wishlistVersionOf(String ifMatch) {
+        if (Objects.isNull(ifMatch) || ifMatch.trim().equals(ANY)) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String version = tag.substring(1, tag.length() - 1);
+            for (WishlistView view : WishlistView.values()) {
+                String suffix = VIEW_SEPARATOR + view.tag();
+                if (version.endsWith(suffix)) {
+                    version = version.substring(0, version.length() - suffix.length());
+                }
+            }
+            try {
+                return Long.parseLong(version);
+            } catch (NumberFormatException e) {
+                //Not a version tag, so it cannot match.
+            }
+        }
+        throw new PreconditionFailedException(WISHLIST_VERSION_MISMATCH_EXCEPTION_MESSAGE);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
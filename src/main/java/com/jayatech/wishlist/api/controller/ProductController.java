@@ -1,35 +1,86 @@
 package com.jayatech.wishlist.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayatech.wishlist.api.openapi.ProductControllerOpenApi;
+import com.jayatech.wishlist.domain.model.dto.ProductPage;
 import com.jayatech.wishlist.domain.service.ProductService;
 import com.jayatech.wishlist.domain.model.Product;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Objects;
 
+@Profile("!reactive")
 @RestController
 @RequestMapping(value = "/products")
 public class ProductController implements ProductControllerOpenApi {
 
     private final ProductService productService;
 
+    private final ObjectMapper objectMapper;
+
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.objectMapper = objectMapper;
     }
 
     @Override
     @GetMapping()
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok().body(productService.findAll());
+    public ResponseEntity<List<Product>> getAllProducts(@RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "" + ProductService.PRODUCTS_PAGE_SIZE) int size) {
+        ProductPage page = productService.findPage(after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (Objects.nonNull(page.getNext())) {
+            String next = UriComponentsBuilder.fromPath("/products")
+                    .queryParam("after", page.getNext())
+                    .queryParam("size", page.getProducts().size())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.getProducts());
+    }
+
+    @Override
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                productService.forEachProduct(product -> {
+                    try {
+                        generator.writeObject(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @Override
     @GetMapping("/{productId}")
-    public ResponseEntity<Product> getProductById(@PathVariable String productId) {
-        return ResponseEntity.ok().body(productService.findById(productId));
+    public ResponseEntity<Product> getProductById(@PathVariable String productId,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Product product = productService.findById(productId);
+        String eTag = ETags.ofProduct(product);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(product);
     }
 }
@@ -0,0 +1,70 @@
+package com.jayatech.wishlist.api.controller;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.service.ProductService;
+import com.jayatech.wishlist.domain.service.ReactiveProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Serves the routes of {@link ProductController}, with the same statuses, headers and bodies, on the reactive stack.
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping(value = "/products")
+public class ReactiveProductController {
+
+    private final ReactiveProductService productService;
+
+    @Autowired
+    public ReactiveProductController(ReactiveProductService productService) {
+        this.productService = productService;
+    }
+
+    @GetMapping()
+    public Mono<ResponseEntity<List<Product>>> getAllProducts(@RequestParam(required = false) String after,
+                                                              @RequestParam(defaultValue = "" + ProductService.PRODUCTS_PAGE_SIZE) int size) {
+        return productService.findPage(after, size).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (Objects.nonNull(page.getNext())) {
+                String next = UriComponentsBuilder.fromPath("/products")
+                        .queryParam("after", page.getNext())
+                        .queryParam("size", page.getProducts().size())
+                        .toUriString();
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(page.getProducts());
+        });
+    }
+
+    /**
+     * The products are encoded into the JSON array as they are read from the cursor
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<Product> streamAllProducts() {
+        return productService.findAll();
+    }
+
+    @GetMapping("/{productId}")
+    public Mono<ResponseEntity<Product>> getProductById(@PathVariable String productId,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productService.findById(productId).map(product -> {
+            String eTag = ETags.ofProduct(product);
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            return ResponseEntity.ok().eTag(eTag).body(product);
+        });
+    }
+}
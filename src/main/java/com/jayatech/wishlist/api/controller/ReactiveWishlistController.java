@@ -0,0 +1,152 @@
+package com.jayatech.wishlist.api.controller;
+
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.CompactWishlist;
+import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
+import com.jayatech.wishlist.domain.model.dto.UserDTO;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistView;
+import com.jayatech.wishlist.domain.service.ReactiveWishlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Serves the routes of {@link WishlistController}, with the same statuses and bodies, on the reactive stack.
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping(value = "/wishlist")
+public class ReactiveWishlistController {
+
+    private final ReactiveWishlistService wishlistService;
+
+    @Autowired
+    public ReactiveWishlistController(ReactiveWishlistService wishlistService) {
+        this.wishlistService = wishlistService;
+    }
+
+    @PostMapping()
+    public Mono<ResponseEntity<Wishlist>> createWishlist(@RequestBody UserDTO user) {
+        return wishlistService.saveWishList(user.getUserId())
+                .map(wishlist -> ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.ofWishlist(wishlist.getVersion())).body(wishlist));
+    }
+
+    @GetMapping("/{wishlistId}")
+    public Mono<ResponseEntity<Wishlist>> getWishList(@PathVariable String wishlistId,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<Wishlist>> found = wishlistService.findById(wishlistId)
+                .map(wishlist -> ResponseEntity.ok().eTag(ETags.ofWishlist(wishlist.getVersion())).body(wishlist));
+        if (Objects.isNull(ifNoneMatch)) {
+            return found;
+        }
+        return wishlistService.findVersion(wishlistId).flatMap(version -> {
+            String eTag = ETags.ofWishlist(version);
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build());
+            }
+            return found;
+        });
+    }
+
+    @GetMapping(value = "/{wishlistId}", params = "view")
+    public Mono<ResponseEntity<Object>> getWishListView(@PathVariable String wishlistId, @RequestParam String view,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return Mono.fromSupplier(() -> WishlistView.of(view)).flatMap(wishlistView -> {
+            Mono<ResponseEntity<Object>> found = wishlistService.findById(wishlistId, wishlistView)
+                    .map(wishlist -> ResponseEntity.ok().eTag(ETags.ofWishlist(wishlist.getVersion(), wishlistView))
+                            .body(wishlistView == WishlistView.FULL ? wishlist : CompactWishlist.of(wishlist, wishlistView)));
+            if (Objects.isNull(ifNoneMatch)) {
+                return found;
+            }
+            return wishlistService.findVersion(wishlistId).flatMap(version -> {
+                String eTag = ETags.ofWishlist(version, wishlistView);
+                if (ETags.matches(ifNoneMatch, eTag)) {
+                    return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build());
+                }
+                return found;
+            });
+        });
+    }
+
+    @GetMapping("/{wishlistId}/check/{productId}")
+    public Mono<ResponseEntity<ProductCheckResponse>> checkWishList(@PathVariable String wishlistId, @PathVariable String productId) {
+        return wishlistService.checkProduct(wishlistId, productId).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{wishlistId}/check")
+    public Mono<ResponseEntity<Map<String, Boolean>>> checkWishListProducts(@PathVariable String wishlistId, @RequestParam Set<String> productIds) {
+        return wishlistService.checkProducts(wishlistId, productIds).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/{wishlistId}/items/{productId}")
+    public Mono<ResponseEntity<Wishlist>> incrementWishlist(@PathVariable String wishlistId, @PathVariable String productId,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> wishlistService.updateWishList(wishlistId, productId, ETags.wishlistVersionOf(ifMatch)))
+                .map(wishlist -> ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.ofWishlist(wishlist.getVersion())).body(wishlist));
+    }
+
+    @PatchMapping("/{wishlistId}/items")
+    public Mono<ResponseEntity<WishlistBatchResponse>> updateWishlistItems(@PathVariable String wishlistId, @RequestBody WishlistBatchRequest batch,
+                                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> wishlistService.updateWishListItems(wishlistId, batch, ETags.wishlistVersionOf(ifMatch)))
+                .map(response -> ResponseEntity.ok().eTag(ETags.ofWishlist(response.getWishlist().getVersion())).body(response));
+    }
+
+    @DeleteMapping("{wishlistId}/items/{itemId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteProductWishList(@PathVariable String wishlistId, @PathVariable String itemId,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> wishlistService.removeWishListProduct(wishlistId, itemId, ETags.wishlistVersionOf(ifMatch)));
+    }
+
+    @GetMapping("/user/{userId}")
+    public Mono<ResponseEntity<Wishlist>> getUserWishList(@PathVariable String userId,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return wishlistService.findIdByUserId(userId).flatMap(wishlistId -> this.getWishList(wishlistId, ifNoneMatch));
+    }
+
+    @GetMapping(value = "/user/{userId}", params = "view")
+    public Mono<ResponseEntity<Object>> getUserWishListView(@PathVariable String userId, @RequestParam String view,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return wishlistService.findIdByUserId(userId).flatMap(wishlistId -> this.getWishListView(wishlistId, view, ifNoneMatch));
+    }
+
+    @GetMapping("/user/{userId}/check/{productId}")
+    public Mono<ResponseEntity<ProductCheckResponse>> checkUserWishList(@PathVariable String userId, @PathVariable String productId) {
+        return wishlistService.findIdByUserId(userId).flatMap(wishlistId -> this.checkWishList(wishlistId, productId));
+    }
+
+    @GetMapping("/user/{userId}/check")
+    public Mono<ResponseEntity<Map<String, Boolean>>> checkUserWishListProducts(@PathVariable String userId, @RequestParam Set<String> productIds) {
+        return wishlistService.findIdByUserId(userId).flatMap(wishlistId -> this.checkWishListProducts(wishlistId, productIds));
+    }
+
+    @PostMapping("/user/{userId}/items/{productId}")
+    public Mono<ResponseEntity<Wishlist>> incrementUserWishlist(@PathVariable String userId, @PathVariable String productId,
+                                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return wishlistService.findIdByUserId(userId).flatMap(wishlistId -> this.incrementWishlist(wishlistId, productId, ifMatch));
+    }
+
+    @PatchMapping("/user/{userId}/items")
+    public Mono<ResponseEntity<WishlistBatchResponse>> updateUserWishlistItems(@PathVariable String userId, @RequestBody WishlistBatchRequest batch,
+                                                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return wishlistService.findIdByUserId(userId).flatMap(wishlistId -> this.updateWishlistItems(wishlistId, batch, ifMatch));
+    }
+
+    @DeleteMapping("/user/{userId}/items/{itemId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteProductUserWishList(@PathVariable String userId, @PathVariable String itemId,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return wishlistService.findIdByUserId(userId).flatMap(wishlistId -> this.deleteProductWishList(wishlistId, itemId, ifMatch));
+    }
+}
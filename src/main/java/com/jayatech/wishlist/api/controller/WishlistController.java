@@ -2,14 +2,25 @@ package com.jayatech.wishlist.api.controller;
 
 import com.jayatech.wishlist.api.openapi.WishlistControllerOpenApi;
 import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.CompactWishlist;
 import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
 import com.jayatech.wishlist.domain.model.dto.UserDTO;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistView;
 import com.jayatech.wishlist.domain.service.WishlistService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Profile("!reactive")
 @RestController
 @RequestMapping(value = "/wishlist")
 public class WishlistController implements WishlistControllerOpenApi {
@@ -24,35 +35,133 @@ public class WishlistController implements WishlistControllerOpenApi {
     @Override
     @PostMapping()
     public ResponseEntity<Wishlist> createWishlist(@RequestBody UserDTO user) {
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(wishlistService.saveWishList(user.getUserId()));
+        Wishlist wishlist = wishlistService.saveWishList(user.getUserId());
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.ofWishlist(wishlist.getVersion())).body(wishlist);
     }
 
     @Override
     @GetMapping("/{wishlistId}")
-    public ResponseEntity<Wishlist> getWishList(@PathVariable String wishlistId) {
-        return ResponseEntity.ok().body(wishlistService.findById(wishlistId));
+    public ResponseEntity<Wishlist> getWishList(@PathVariable String wishlistId,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ResponseEntity<Wishlist> notModified = this.notModified(wishlistId, ifNoneMatch, WishlistView.FULL);
+        if (Objects.nonNull(notModified)) {
+            return notModified;
+        }
+        Wishlist wishlist = wishlistService.findById(wishlistId);
+        return ResponseEntity.ok().eTag(ETags.ofWishlist(wishlist.getVersion())).body(wishlist);
+    }
+
+    @Override
+    @GetMapping(value = "/{wishlistId}", params = "view")
+    public ResponseEntity<Object> getWishListView(@PathVariable String wishlistId, @RequestParam String view,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        WishlistView wishlistView = WishlistView.of(view);
+        ResponseEntity<Object> notModified = this.notModified(wishlistId, ifNoneMatch, wishlistView);
+        if (Objects.nonNull(notModified)) {
+            return notModified;
+        }
+        Wishlist wishlist = wishlistService.findById(wishlistId, wishlistView);
+        return ResponseEntity.ok().eTag(ETags.ofWishlist(wishlist.getVersion(), wishlistView))
+                .body(wishlistView == WishlistView.FULL ? wishlist : CompactWishlist.of(wishlist, wishlistView));
+    }
+
+    /**
+     * Answers a conditional GET from the wishlist version alone, without loading the wishlist
+     *
+     * @return the 304 response, or null when the client does not hold the current representation of the view
+     */
+    private <T> ResponseEntity<T> notModified(String wishlistId, String ifNoneMatch, WishlistView view) {
+        if (Objects.nonNull(ifNoneMatch)) {
+            String eTag = ETags.ofWishlist(wishlistService.findVersion(wishlistId), view);
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        return null;
     }
 
     @Override
     @GetMapping("/{wishlistId}/check/{productId}")
     public ResponseEntity<ProductCheckResponse> checkWishList(@PathVariable String wishlistId, @PathVariable String productId) {
-        Wishlist list = wishlistService.findById(wishlistId);
-        ProductCheckResponse checkResponse = wishlistService.checkProduct(list, productId);
+        ProductCheckResponse checkResponse = wishlistService.checkProduct(wishlistId, productId);
         return ResponseEntity.ok().body(checkResponse);
     }
 
+    @Override
+    @GetMapping("/{wishlistId}/check")
+    public ResponseEntity<Map<String, Boolean>> checkWishListProducts(@PathVariable String wishlistId, @RequestParam Set<String> productIds) {
+        return ResponseEntity.ok().body(wishlistService.checkProducts(wishlistId, productIds));
+    }
+
     @Override
     @PostMapping("/{wishlistId}/items/{productId}")
-    public ResponseEntity<Wishlist> incrementWishlist(@PathVariable String wishlistId, @PathVariable String productId) {
-        Wishlist list = wishlistService.updateWishList(wishlistService.findById(wishlistId), productId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(list);
+    public ResponseEntity<Wishlist> incrementWishlist(@PathVariable String wishlistId, @PathVariable String productId,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Wishlist list = wishlistService.updateWishList(wishlistId, productId, ETags.wishlistVersionOf(ifMatch));
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.ofWishlist(list.getVersion())).body(list);
+    }
+
+    @Override
+    @PatchMapping("/{wishlistId}/items")
+    public ResponseEntity<WishlistBatchResponse> updateWishlistItems(@PathVariable String wishlistId, @RequestBody WishlistBatchRequest batch,
+                                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        WishlistBatchResponse response = wishlistService.updateWishListItems(wishlistId, batch, ETags.wishlistVersionOf(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.ofWishlist(response.getWishlist().getVersion())).body(response);
     }
 
     @Override
     @DeleteMapping("{wishlistId}/items/{itemId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteProductWishList(@PathVariable String wishlistId, @PathVariable String itemId) {
-        wishlistService.removeWishListProduct(wishlistService.findById(wishlistId), itemId);
+    public void deleteProductWishList(@PathVariable String wishlistId, @PathVariable String itemId,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        wishlistService.removeWishListProduct(wishlistId, itemId, ETags.wishlistVersionOf(ifMatch));
+    }
+
+    @Override
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<Wishlist> getUserWishList(@PathVariable String userId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return this.getWishList(wishlistService.findIdByUserId(userId), ifNoneMatch);
+    }
+
+    @Override
+    @GetMapping(value = "/user/{userId}", params = "view")
+    public ResponseEntity<Object> getUserWishListView(@PathVariable String userId, @RequestParam String view,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return this.getWishListView(wishlistService.findIdByUserId(userId), view, ifNoneMatch);
+    }
+
+    @Override
+    @GetMapping("/user/{userId}/check/{productId}")
+    public ResponseEntity<ProductCheckResponse> checkUserWishList(@PathVariable String userId, @PathVariable String productId) {
+        return this.checkWishList(wishlistService.findIdByUserId(userId), productId);
+    }
+
+    @Override
+    @GetMapping("/user/{userId}/check")
+    public ResponseEntity<Map<String, Boolean>> checkUserWishListProducts(@PathVariable String userId, @RequestParam Set<String> productIds) {
+        return this.checkWishListProducts(wishlistService.findIdByUserId(userId), productIds);
+    }
+
+    @Override
+    @PostMapping("/user/{userId}/items/{productId}")
+    public ResponseEntity<Wishlist> incrementUserWishlist(@PathVariable String userId, @PathVariable String productId,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return this.incrementWishlist(wishlistService.findIdByUserId(userId), productId, ifMatch);
+    }
+
+    @Override
+    @PatchMapping("/user/{userId}/items")
+    public ResponseEntity<WishlistBatchResponse> updateUserWishlistItems(@PathVariable String userId, @RequestBody WishlistBatchRequest batch,
+                                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return this.updateWishlistItems(wishlistService.findIdByUserId(userId), batch, ifMatch);
+    }
+
+    @Override
+    @DeleteMapping("/user/{userId}/items/{itemId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteProductUserWishList(@PathVariable String userId, @PathVariable String itemId,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        this.deleteProductWishList(wishlistService.findIdByUserId(userId), itemId, ifMatch);
     }
 }
@@ -2,6 +2,7 @@ package com.jayatech.wishlist.api.openapi;
 
 import com.jayatech.wishlist.domain.exception.StandardError;
 import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.service.ProductService;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,9 +12,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,19 +26,34 @@ import java.util.List;
 @Tag(name = "Products", description = "Api to view the Products")
 public interface ProductControllerOpenApi {
 
-    @Operation(summary = "List of products")
+    @Operation(summary = "Page of products ordered by id",
+            description = "The Link header carries the next page with rel=\"next\" and is absent on the last page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Get a page of products",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Product.class))})
+    })
+     ResponseEntity<List<Product>> getAllProducts(
+            @Parameter(name = "after", description = "Identifier of the last product of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(name = "size", description = "Number of products of the page, up to 100")
+            @RequestParam(defaultValue = "" + ProductService.PRODUCTS_PAGE_SIZE) int size);
+
+    @Operation(summary = "All products, written while they are read from the database")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Get all products",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = Product.class))})
     })
-     ResponseEntity<List<Product>> getAllProducts();
+     ResponseEntity<StreamingResponseBody> streamAllProducts();
 
     @Operation(summary = "Product by its id")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Found the product",
+            @ApiResponse(responseCode = "200", description = "Found the product, tagged with a digest of its fields",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = Product.class))}),
+            @ApiResponse(responseCode = "304", description = "The product still matches the ETag of If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = StandardError.class))})
@@ -41,6 +61,8 @@ public interface ProductControllerOpenApi {
     @GetMapping("/{productId}")
      ResponseEntity<Product> getProductById(
             @Parameter(name = "productId", description = "Identifier of the product", required = true)
-            @PathVariable String productId);
+            @PathVariable String productId,
+            @Parameter(name = "If-None-Match", description = "ETag of a previous response, answered with 304 while it is current")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
 }
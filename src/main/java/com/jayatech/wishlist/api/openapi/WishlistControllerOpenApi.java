@@ -2,8 +2,11 @@ package com.jayatech.wishlist.api.openapi;
 
 import com.jayatech.wishlist.domain.exception.StandardError;
 import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.CompactWishlist;
 import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
 import com.jayatech.wishlist.domain.model.dto.UserDTO;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResponse;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,10 +16,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.Set;
+
 @OpenAPIDefinition(info=@Info(title="Wishlist API"))
 @Tag(name = "Wishlist", description = "Api to manage wishlist")
 public interface WishlistControllerOpenApi {
@@ -40,9 +47,11 @@ public interface WishlistControllerOpenApi {
 
     @Operation(summary = "Wishlist by its id")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Found the wishlist",
+            @ApiResponse(responseCode = "200", description = "Found the wishlist, tagged with its version",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = Wishlist.class))}),
+            @ApiResponse(responseCode = "304", description = "The wishlist still has the version of If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = StandardError.class))})
@@ -50,7 +59,34 @@ public interface WishlistControllerOpenApi {
     @GetMapping("/{wishlistId}")
     ResponseEntity<Wishlist> getWishList(
             @Parameter(name = "wishlistId", description = "Identifier of the Wishlist", required = true)
-            @PathVariable String wishlistId);
+            @PathVariable String wishlistId,
+            @Parameter(name = "If-None-Match", description = "ETag of a previous response, answered with 304 while it is current")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+    @Operation(summary = "Wishlist by its id in a view",
+            description = "full serves the whole wishlist, compact leaves out the fields without a value "
+                    + "and ids keeps only the id of each product, read without the product details")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the wishlist, tagged with its version and view",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(oneOf = {Wishlist.class, CompactWishlist.class}))}),
+            @ApiResponse(responseCode = "304", description = "The wishlist still has the version of If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown view",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "404", description = "Wishlist not found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @GetMapping(value = "/{wishlistId}", params = "view")
+    ResponseEntity<Object> getWishListView(
+            @Parameter(name = "wishlistId", description = "Identifier of the Wishlist", required = true)
+            @PathVariable String wishlistId,
+            @Parameter(name = "view", description = "full, compact or ids", required = true)
+            @RequestParam String view,
+            @Parameter(name = "If-None-Match", description = "ETag of a previous response of the view, answered with 304 while it is current")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
     @Operation(summary = "Check product on a Wishlist")
     @ApiResponses(value = {
@@ -66,6 +102,19 @@ public interface WishlistControllerOpenApi {
             @Parameter(name = "wishlistId", description = "Identifier of the Wishlist", required = true) @PathVariable String wishlistId,
             @Parameter(name = "productId", description = "Identifier of the Product", required = true) @PathVariable String productId);
 
+    @Operation(summary = "Check several products on a Wishlist")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Whether each product is on the wishlist, by product id",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "404", description = "Wishlist not found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @GetMapping("/{wishlistId}/check")
+    ResponseEntity<Map<String, Boolean>> checkWishListProducts(
+            @Parameter(name = "wishlistId", description = "Identifier of the Wishlist", required = true) @PathVariable String wishlistId,
+            @Parameter(name = "productIds", description = "Identifiers of the Products", required = true) @RequestParam Set<String> productIds);
+
     @Operation(summary = "Increment Wishlist with a new Product")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Include new Product on a Wishlist",
@@ -77,6 +126,12 @@ public interface WishlistControllerOpenApi {
             @ApiResponse(responseCode = "404", description = "Wishlist not found or Product not found",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "409", description = "Concurrent updates outlasted the attempts",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "412", description = "Wishlist no longer on the version of If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = StandardError.class))})
@@ -85,7 +140,38 @@ public interface WishlistControllerOpenApi {
     @PostMapping("/{wishlistId}/items/{productId}")
     ResponseEntity<Wishlist> incrementWishlist(
             @Parameter(name = "wishlistId", description = "Identifier of the Wishlist", required = true) @PathVariable String wishlistId,
-            @Parameter(name = "productId", description = "Identifier of the Product", required = true) @PathVariable String productId);
+            @Parameter(name = "productId", description = "Identifier of the Product", required = true) @PathVariable String productId,
+            @Parameter(name = "If-Match", description = "ETag of the Wishlist version the change applies to")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
+
+    @Operation(summary = "Add and remove many Wishlist Items",
+            description = "Removals are applied before additions and the whole batch is stored with a single write")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch applied, with the outcome of each entry",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = WishlistBatchResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Batch adding or removing more items than the wishlist maximum size",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "404", description = "Wishlist not found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "409", description = "Concurrent updates outlasted the attempts",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "412", description = "Wishlist no longer on the version of If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @PatchMapping("/{wishlistId}/items")
+    ResponseEntity<WishlistBatchResponse> updateWishlistItems(
+            @Parameter(name = "wishlistId", description = "Identifier of the Wishlist", required = true) @PathVariable String wishlistId,
+            @RequestBody WishlistBatchRequest batch,
+            @Parameter(name = "If-Match", description = "ETag of the Wishlist version the change applies to")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
 
     @Operation(summary = "Remove a Wishlist Item")
     @ApiResponses(value = {
@@ -93,6 +179,9 @@ public interface WishlistControllerOpenApi {
             @ApiResponse(responseCode = "404", description = "Wishlist not found or Wishlist item not found",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "412", description = "Wishlist no longer on the version of If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = StandardError.class))})
@@ -102,5 +191,148 @@ public interface WishlistControllerOpenApi {
     @ResponseStatus(HttpStatus.NO_CONTENT)
     void deleteProductWishList(
             @Parameter(name = "wishlistId", description = "Identifier of the Wishlist", required = true) @PathVariable String wishlistId,
-            @Parameter(name = "itemId", description = "Identifier of the Wishlist item", required = true) @PathVariable String itemId);
+            @Parameter(name = "itemId", description = "Identifier of the Wishlist item", required = true) @PathVariable String itemId,
+            @Parameter(name = "If-Match", description = "ETag of the Wishlist version the change applies to")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
+
+    @Operation(summary = "Wishlist of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the wishlist of the user, tagged with its version",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Wishlist.class))}),
+            @ApiResponse(responseCode = "304", description = "The wishlist still has the version of If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "The user has no wishlist",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @GetMapping("/user/{userId}")
+    ResponseEntity<Wishlist> getUserWishList(
+            @Parameter(name = "userId", description = "Identifier of the user", required = true)
+            @PathVariable String userId,
+            @Parameter(name = "If-None-Match", description = "ETag of a previous response, answered with 304 while it is current")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+    @Operation(summary = "Wishlist of a user in a view",
+            description = "full serves the whole wishlist, compact leaves out the fields without a value "
+                    + "and ids keeps only the id of each product, read without the product details")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the wishlist, tagged with its version and view",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(oneOf = {Wishlist.class, CompactWishlist.class}))}),
+            @ApiResponse(responseCode = "304", description = "The wishlist still has the version of If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown view",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "404", description = "The user has no wishlist",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @GetMapping(value = "/user/{userId}", params = "view")
+    ResponseEntity<Object> getUserWishListView(
+            @Parameter(name = "userId", description = "Identifier of the user", required = true)
+            @PathVariable String userId,
+            @Parameter(name = "view", description = "full, compact or ids", required = true)
+            @RequestParam String view,
+            @Parameter(name = "If-None-Match", description = "ETag of a previous response of the view, answered with 304 while it is current")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+    @Operation(summary = "Check product on the Wishlist of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Product found on the wishlist",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ProductCheckResponse.class))}),
+            @ApiResponse(responseCode = "404", description = "Product not found on the wishlist or the user has no wishlist",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ProductCheckResponse.class))})
+    })
+    @GetMapping("/user/{userId}/check/{productId}")
+    ResponseEntity<ProductCheckResponse> checkUserWishList(
+            @Parameter(name = "userId", description = "Identifier of the user", required = true) @PathVariable String userId,
+            @Parameter(name = "productId", description = "Identifier of the Product", required = true) @PathVariable String productId);
+
+    @Operation(summary = "Check several products on the Wishlist of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Whether each product is on the wishlist",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "404", description = "The user has no wishlist",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @GetMapping("/user/{userId}/check")
+    ResponseEntity<Map<String, Boolean>> checkUserWishListProducts(
+            @Parameter(name = "userId", description = "Identifier of the user", required = true) @PathVariable String userId,
+            @Parameter(name = "productIds", description = "Identifiers of the Products", required = true) @RequestParam Set<String> productIds);
+
+    @Operation(summary = "Increment the Wishlist of a user with a new Product")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Include new Product on the wishlist",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Wishlist.class))}),
+            @ApiResponse(responseCode = "400", description = "Wishlist maximum size or Product registered on the wishlist",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "404", description = "The user has no wishlist or Product not found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "409", description = "Concurrent updates outlasted the attempts",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "412", description = "Wishlist no longer on the version of If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @PostMapping("/user/{userId}/items/{productId}")
+    ResponseEntity<Wishlist> incrementUserWishlist(
+            @Parameter(name = "userId", description = "Identifier of the user", required = true) @PathVariable String userId,
+            @Parameter(name = "productId", description = "Identifier of the Product", required = true) @PathVariable String productId,
+            @Parameter(name = "If-Match", description = "ETag of the Wishlist version the change applies to")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
+
+    @Operation(summary = "Add and remove many Items of the Wishlist of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch applied, with the outcome of each entry",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = WishlistBatchResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Batch adding or removing more items than the wishlist maximum size",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "404", description = "The user has no wishlist",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "409", description = "Concurrent updates outlasted the attempts",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "412", description = "Wishlist no longer on the version of If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @PatchMapping("/user/{userId}/items")
+    ResponseEntity<WishlistBatchResponse> updateUserWishlistItems(
+            @Parameter(name = "userId", description = "Identifier of the user", required = true) @PathVariable String userId,
+            @RequestBody WishlistBatchRequest batch,
+            @Parameter(name = "If-Match", description = "ETag of the Wishlist version the change applies to")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
+
+    @Operation(summary = "Remove an Item from the Wishlist of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Wishlist item deleted"),
+            @ApiResponse(responseCode = "404", description = "The user has no wishlist or Wishlist item not found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))}),
+            @ApiResponse(responseCode = "412", description = "Wishlist no longer on the version of If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StandardError.class))})
+    })
+    @DeleteMapping("/user/{userId}/items/{itemId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    void deleteProductUserWishList(
+            @Parameter(name = "userId", description = "Identifier of the user", required = true) @PathVariable String userId,
+            @Parameter(name = "itemId", description = "Identifier of the Wishlist item", required = true) @PathVariable String itemId,
+            @Parameter(name = "If-Match", description = "ETag of the Wishlist version the change applies to")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
 }
@@ -0,0 +1,61 @@
+package com.jayatech.wishlist.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(WishlistCacheProperties.class)
+public class CacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+
+    public static final String WISHLISTS_CACHE = "wishlists";
+
+    public static final String WISHLIST_IDS_CACHE = "wishlistIds";
+
+    /**
+     * Only the caches registered here exist, each one bounded by its own settings.
+     * Statistics are recorded so actuator publishes hit, miss and eviction counts.
+     * <p>
+     * The wishlists cache is bounded by the number of items it holds, since a wishlist
+     * weighs as much as its items, and it is left out when disabled. The versions left
+     * in place of the entries by invalidations weigh one.
+     * <p>
+     * The wishlistIds cache maps each user to the id of their wishlist. That id never changes,
+     * so the cache only expires to let go of wishlists removed outside the api.
+     */
+    @Bean
+    public CacheManager cacheManager(WishlistCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(Collections.emptyList());
+        cacheManager.registerCustomCache(PRODUCTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(properties.getProducts().getMaximumSize())
+                .expireAfterWrite(properties.getProducts().getExpireAfterWrite())
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(WISHLIST_IDS_CACHE, Caffeine.newBuilder()
+                .maximumSize(properties.getWishlistIds().getMaximumSize())
+                .expireAfterWrite(properties.getWishlistIds().getExpireAfterWrite())
+                .recordStats()
+                .build());
+        WishlistCacheProperties.Wishlists wishlists = properties.getWishlists();
+        if (wishlists.isEnabled()) {
+            cacheManager.registerCustomCache(WISHLISTS_CACHE, Caffeine.newBuilder()
+                    .maximumWeight(wishlists.getMaximumWeight())
+                    .weigher((Object id, Object cached) -> cached instanceof Wishlist wishlist ? 1 + wishlist.getWishListItems().size() : 1)
+                    .expireAfterWrite(wishlists.getExpireAfterWrite())
+                    .recordStats()
+                    .build());
+        }
+        return cacheManager;
+    }
+}
@@ -0,0 +1,347 @@
+package com.jayatech.wishlist.config;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.repository.JobLeaseRepository;
+import com.jayatech.wishlist.domain.service.ProductSnapshotPropagator;
+import com.jayatech.wishlist.domain.service.VersionedWishlistCache;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.jayatech.wishlist.config.CacheConfig.*;
+
+/**
+ * Follows the change stream of the products and wishlists collections and evicts the local cache entries
+ * of every changed document, so writes made by any instance invalidate the caches of all of them.
+ * A changed wishlist is invalidated by the version it was written with, so a load of an older state
+ * racing with the event cannot be cached after it. A changed product also has its snapshots
+ * propagated to the wishlists right away, by the one instance holding the propagation lease.
+ * <p>
+ * The position in the stream is stored as a resume token under the listener id, which has to be set
+ * and stable across restarts, so an instance restarted under the same id replays the events it missed.
+ * Tokens not saved for a week are expired by a TTL index. When the token has fallen out of the oplog,
+ * the caches are cleared and the stream is followed from the current time.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wishlist.cache.invalidation", name = "enabled", havingValue = "true")
+public class ChangeStreamCacheInvalidator implements DisposableBean {
+
+    public static final String LAG_TIMER = "wishlist.cache.invalidation.lag";
+
+    static final String RESUME_TOKENS_COLLECTION = "cacheInvalidationResumeTokens";
+
+    static final String SNAPSHOT_PROPAGATION_JOB = "productSnapshotPropagation";
+
+    private static final String VERSION_FIELD = "version";
+
+    private static final Set<Integer> LOST_POSITION_ERRORS = Set.of(280, 286);
+
+    private static final Duration MAX_AWAIT = Duration.ofSeconds(1);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final CacheManager cacheManager;
+
+    private final ObjectProvider<ProductSnapshotPropagator> snapshotPropagator;
+
+    private final JobLeaseRepository jobLeaseRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private final WishlistCacheProperties.Invalidation properties;
+
+    private final String listenerId;
+
+    private final String productsCollection;
+
+    private final String wishlistsCollection;
+
+    private volatile boolean running;
+
+    private Thread subscriber;
+
+    private BsonDocument resumeToken;
+
+    private Instant resumeTokenSavedAt = Instant.EPOCH;
+
+    @Autowired
+    public ChangeStreamCacheInvalidator(MongoTemplate mongoTemplate, CacheManager cacheManager,
+                                        ObjectProvider<ProductSnapshotPropagator> snapshotPropagator,
+                                        JobLeaseRepository jobLeaseRepository, MeterRegistry meterRegistry,
+                                        WishlistCacheProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheManager = cacheManager;
+        this.snapshotPropagator = snapshotPropagator;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties.getInvalidation();
+        if (Objects.isNull(this.properties.getListenerId()) || this.properties.getListenerId().isBlank()) {
+            throw new IllegalStateException("wishlist.cache.invalidation.listener-id must be set to a name kept across restarts");
+        }
+        this.listenerId = this.properties.getListenerId();
+        this.productsCollection = mongoTemplate.getCollectionName(Product.class);
+        this.wishlistsCollection = mongoTemplate.getCollectionName(Wishlist.class);
+    }
+
+    /**
+     * Starts following the stream once the migrations have run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        subscriber = new Thread(this::subscribe, "cache-invalidation");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (Objects.nonNull(subscriber)) {
+            subscriber.join(MAX_AWAIT.multipliedBy(2).toMillis());
+        }
+    }
+
+    private void subscribe() {
+        resumeToken = this.loadResumeToken();
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = this.open()) {
+                log.info("Following the {} and {} change stream as {}{}", productsCollection, wishlistsCollection, listenerId,
+                        Objects.nonNull(resumeToken) ? ", resuming from the stored token" : "");
+                boolean open = true;
+                while (running && open) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    if (Objects.nonNull(event)) {
+                        this.apply(event);
+                        //The server closes the stream after an invalidate event, it is opened again after it.
+                        open = event.getOperationType() != OperationType.INVALIDATE;
+                    }
+                    //The cursor token also moves past the filtered out events, so a quiet stream keeps a recent position.
+                    this.saveResumeToken(cursor.getResumeToken(), !open);
+                }
+            } catch (MongoServerException e) {
+                if (LOST_POSITION_ERRORS.contains(e.getCode())) {
+                    log.warn("The stored cache invalidation position is no longer available, following the stream from now: {}", e.getMessage());
+                    this.clearCaches();
+                    resumeToken = null;
+                } else {
+                    this.retryLater(e);
+                }
+            } catch (RuntimeException e) {
+                this.retryLater(e);
+            }
+        }
+        this.saveResumeToken(resumeToken, true);
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.or(
+                        Filters.in("ns.coll", productsCollection, wishlistsCollection),
+                        Filters.eq("operationType", OperationType.DROP_DATABASE.getValue())))))
+                .maxAwaitTime(MAX_AWAIT.toMillis(), TimeUnit.MILLISECONDS);
+        //startAfter, unlike resumeAfter, also accepts the token of an invalidate event.
+        return (Objects.nonNull(resumeToken) ? stream.startAfter(resumeToken) : stream).cursor();
+    }
+
+    /**
+     * Evicts the cache entry of the changed document, invalidating a wishlist by the version written.
+     * Events without a document key, such as a dropped collection or database, clear the caches.
+     * The lag between the write and its eviction is recorded.
+     *
+     * @param event is an event of the products or wishlists collections
+     */
+    void apply(ChangeStreamDocument<Document> event) {
+        String collection = collectionOf(event);
+        String id = idOf(event.getDocumentKey());
+        if (Objects.isNull(id)) {
+            this.clearCaches();
+        } else if (productsCollection.equals(collection)) {
+            this.evict(PRODUCTS_CACHE, id);
+            if (event.getOperationType() == OperationType.UPDATE || event.getOperationType() == OperationType.REPLACE) {
+                this.propagateSnapshots(id);
+            }
+        } else if (wishlistsCollection.equals(collection)) {
+            Long version = event.getOperationType() == OperationType.DELETE ? Long.valueOf(Long.MAX_VALUE) : versionOf(event);
+            if (Objects.nonNull(version)) {
+                VersionedWishlistCache.invalidate(cacheManager.getCache(WISHLISTS_CACHE), id, version);
+            } else {
+                //A write that did not set the version, made outside the api, cannot be ordered against the loads.
+                this.evict(WISHLISTS_CACHE, id);
+            }
+            if (event.getOperationType() == OperationType.DELETE) {
+                //The event only carries the id, so the user whose wishlist was removed is not known.
+                this.clear(WISHLIST_IDS_CACHE);
+            }
+        }
+        Instant writtenAt = writtenAt(event);
+        if (Objects.nonNull(writtenAt)) {
+            Duration lag = Duration.between(writtenAt, Instant.now());
+            Timer.builder(LAG_TIMER)
+                    .description("Time between a write and the eviction of its cache entry on this instance")
+                    .tag("collection", Objects.nonNull(collection) ? collection : "none")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry)
+                    .record(lag.isNegative() ? Duration.ZERO : lag);
+        }
+    }
+
+    /**
+     * Propagates the snapshots of a changed product when this instance holds the propagation lease,
+     * so the product is read and its wishlists rewritten once however many instances receive the event
+     */
+    private void propagateSnapshots(String productId) {
+        ProductSnapshotPropagator propagator = snapshotPropagator.getIfAvailable();
+        if (Objects.nonNull(propagator)
+                && jobLeaseRepository.tryHold(SNAPSHOT_PROPAGATION_JOB, properties.getPropagationLease(), listenerId)) {
+            Product product = mongoTemplate.findById(productId, Product.class);
+            if (Objects.nonNull(product)) {
+                propagator.propagate(product);
+            }
+        }
+    }
+
+    private void evict(String cacheName, String id) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (Objects.nonNull(cache)) {
+            cache.evict(id);
+        }
+    }
+
+    private void clearCaches() {
+        List.of(PRODUCTS_CACHE, WISHLISTS_CACHE, WISHLIST_IDS_CACHE).forEach(this::clear);
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (Objects.nonNull(cache)) {
+            cache.clear();
+        }
+    }
+
+    private void retryLater(RuntimeException e) {
+        if (!running) {
+            return;
+        }
+        log.warn("Cache invalidation stream failed, opening it again in {}ms", properties.getRetryDelay().toMillis(), e);
+        if (Objects.isNull(resumeToken)) {
+            //Without a position the events written meanwhile cannot be replayed.
+            this.clearCaches();
+        }
+        try {
+            Thread.sleep(properties.getRetryDelay().toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private BsonDocument loadResumeToken() {
+        BsonDocument stored = mongoTemplate.getDb().getCollection(RESUME_TOKENS_COLLECTION, BsonDocument.class)
+                .find(Filters.eq("_id", listenerId))
+                .first();
+        return Objects.nonNull(stored) && stored.isDocument("token") ? stored.getDocument("token") : null;
+    }
+
+    /**
+     * Keeps the position in the stream, writing it to the database at most once per token-save-interval
+     */
+    private void saveResumeToken(BsonDocument token, boolean force) {
+        if (Objects.isNull(token)) {
+            return;
+        }
+        resumeToken = token;
+        Instant now = Instant.now();
+        if (!force && now.isBefore(resumeTokenSavedAt.plus(properties.getTokenSaveInterval()))) {
+            return;
+        }
+        try {
+            mongoTemplate.getDb().getCollection(RESUME_TOKENS_COLLECTION, BsonDocument.class).replaceOne(
+                    Filters.eq("_id", listenerId),
+                    new BsonDocument("_id", new BsonString(listenerId))
+                            .append("token", token)
+                            .append("savedAt", new BsonDateTime(now.toEpochMilli())),
+                    new ReplaceOptions().upsert(true));
+            resumeTokenSavedAt = now;
+        } catch (RuntimeException e) {
+            log.warn("Failed to store the cache invalidation resume token", e);
+        }
+    }
+
+    static String collectionOf(ChangeStreamDocument<Document> event) {
+        BsonDocument namespace = event.getNamespaceDocument();
+        return Objects.nonNull(namespace) && namespace.isString("coll") ? namespace.getString("coll").getValue() : null;
+    }
+
+    /**
+     * Reads the id the cache entries are keyed by, which is the hex string of an ObjectId
+     */
+    static String idOf(BsonDocument documentKey) {
+        BsonValue id = Objects.nonNull(documentKey) ? documentKey.get("_id") : null;
+        if (Objects.isNull(id)) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    /**
+     * Reads the version written to a wishlist, from the updated fields or else the full document of an insert or replace
+     *
+     * @return the version or null when the write did not set it
+     */
+    static Long versionOf(ChangeStreamDocument<Document> event) {
+        UpdateDescription update = event.getUpdateDescription();
+        if (Objects.nonNull(update) && Objects.nonNull(update.getUpdatedFields())) {
+            BsonValue version = update.getUpdatedFields().get(VERSION_FIELD);
+            return Objects.nonNull(version) && version.isNumber() ? version.asNumber().longValue() : null;
+        }
+        Object version = Objects.nonNull(event.getFullDocument()) ? event.getFullDocument().get(VERSION_FIELD) : null;
+        return version instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * The wall time of the write, or its cluster time in seconds on servers that do not report it
+     */
+    static Instant writtenAt(ChangeStreamDocument<Document> event) {
+        if (Objects.nonNull(event.getWallTime())) {
+            return Instant.ofEpochMilli(event.getWallTime().getValue());
+        }
+        return Objects.nonNull(event.getClusterTime()) ? Instant.ofEpochSecond(event.getClusterTime().getTime()) : null;
+    }
+}
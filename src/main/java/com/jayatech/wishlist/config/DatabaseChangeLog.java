@@ -6,8 +6,14 @@ import com.jayatech.wishlist.domain.model.Product;
 import com.jayatech.wishlist.domain.model.Wishlist;
 import com.jayatech.wishlist.domain.repository.ProductRepository;
 import com.jayatech.wishlist.domain.repository.WishlistRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -51,6 +57,52 @@ public class DatabaseChangeLog {
         wishlistRepository.insert(createWishlist());
     }
 
+    @ChangeSet(order = "003", id = "sort wishlist items by createdAt v1", author = "Romulo")
+    public void sortWishlistItems(WishlistRepository wishlistRepository) {
+        wishlistRepository.sortItemsByCreatedAt();
+    }
+
+    @ChangeSet(order = "004", id = "unique wishlist userId index v1", author = "Romulo")
+    public void createUserIdIndex(MongoTemplate mongoTemplate) {
+        mongoTemplate.indexOps(Wishlist.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .named("userId_unique")
+                .unique());
+    }
+
+    @ChangeSet(order = "005", id = "wishlist item indexes v1", author = "Romulo")
+    public void createWishlistItemIndexes(MongoTemplate mongoTemplate) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(Wishlist.class);
+        indexOperations.ensureIndex(new Index()
+                .on("wishListItems.product.$id", Sort.Direction.ASC)
+                .named("wishListItems_product_id"));
+        indexOperations.ensureIndex(new Index()
+                .on("wishListItems._id", Sort.Direction.ASC)
+                .named("wishListItems_id"));
+        List<String> indexes = indexOperations.getIndexInfo().stream().map(IndexInfo::getName).toList();
+        if (!indexes.containsAll(List.of("userId_unique", "wishListItems_product_id", "wishListItems_id"))) {
+            throw new IllegalStateException("Missing wishlist indexes, found " + indexes);
+        }
+    }
+
+    @ChangeSet(order = "006", id = "embed wishlist product snapshots v1", author = "Romulo")
+    public void embedProductSnapshots(WishlistRepository wishlistRepository, MongoTemplate mongoTemplate) {
+        wishlistRepository.embedProductSnapshots();
+        IndexOperations indexOperations = mongoTemplate.indexOps(Wishlist.class);
+        indexOperations.dropIndex("wishListItems_product_id");
+        indexOperations.ensureIndex(new Index()
+                .on("wishListItems.product._id", Sort.Direction.ASC)
+                .named("wishListItems_product_id"));
+    }
+
+    @ChangeSet(order = "007", id = "expire cache invalidation resume tokens v1", author = "Romulo")
+    public void createResumeTokenTtlIndex(MongoTemplate mongoTemplate) {
+        mongoTemplate.indexOps(ChangeStreamCacheInvalidator.RESUME_TOKENS_COLLECTION).ensureIndex(new Index()
+                .on("savedAt", Sort.Direction.ASC)
+                .named("savedAt_ttl")
+                .expire(Duration.ofDays(7)));
+    }
+
     private Product createProduct(String name, BigDecimal price, String description) {
         return Product.builder()
                 .name(name)
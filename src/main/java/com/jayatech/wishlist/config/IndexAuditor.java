@@ -0,0 +1,81 @@
+package com.jayatech.wishlist.config;
+
+import com.jayatech.wishlist.domain.repository.QueryShape;
+import com.mongodb.MongoClientSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Explains every query shape of the repositories once the migrations have run
+ * and reports the ones the planner answers with a collection scan.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wishlist.index-audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IndexAuditor {
+
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final boolean failOnCollectionScan;
+
+    @Autowired
+    public IndexAuditor(MongoTemplate mongoTemplate,
+                        @Value("${wishlist.index-audit.fail-on-collection-scan:false}") boolean failOnCollectionScan) {
+        this.mongoTemplate = mongoTemplate;
+        this.failOnCollectionScan = failOnCollectionScan;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void audit() {
+        List<String> unindexed = new ArrayList<>();
+        for (QueryShape shape : QueryShape.all()) {
+            Document plan = this.explain(shape);
+            if (usesStage(plan.get("queryPlanner"), COLLECTION_SCAN)) {
+                log.warn("Query {} on {} has no supporting index: {}", shape.getName(), shape.getCollection(),
+                        shape.getFilter().toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry()).toJson());
+                unindexed.add(shape.getName());
+            }
+        }
+        if (unindexed.isEmpty()) {
+            log.info("Every repository query is backed by an index");
+        } else if (failOnCollectionScan) {
+            throw new IllegalStateException("Queries without a supporting index: " + unindexed);
+        }
+    }
+
+    private Document explain(QueryShape shape) {
+        Document find = new Document("find", shape.getCollection())
+                .append("filter", shape.getFilter().toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry()));
+        return mongoTemplate.getDb().runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+    }
+
+    /**
+     * Walks a query plan looking for a stage, whatever the nesting of input stages the server version reports
+     */
+    static boolean usesStage(Object plan, String stage) {
+        if (plan instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.entrySet().stream()
+                    .filter(entry -> !"rejectedPlans".equals(entry.getKey()))
+                    .anyMatch(entry -> usesStage(entry.getValue(), stage));
+        }
+        if (plan instanceof List<?> list) {
+            return list.stream().anyMatch(item -> usesStage(item, stage));
+        }
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package com.jayatech.wishlist.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_OPERATION_TIMER = "wishlist.service.operation";
+    public static final String EXCEPTIONS_COUNTER = "wishlist.exceptions";
+    public static final String WISHLIST_SIZE_SUMMARY = "wishlist.size";
+    public static final String PRODUCT_SNAPSHOTS_COUNTER = "wishlist.product.snapshots.updated";
+    public static final String UPDATE_CONFLICTS_COUNTER = "wishlist.update.conflicts";
+    public static final String UPDATE_RETRIES_COUNTER = "wishlist.update.retries";
+
+    /**
+     * Times the service methods annotated with @Timed, tagging each sample with its class, method and exception.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
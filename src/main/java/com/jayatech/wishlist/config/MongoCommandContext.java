@@ -0,0 +1,60 @@
+package com.jayatech.wishlist.config;
+
+import java.util.Objects;
+
+/**
+ * Thread bound state shared by the Mongo instrumentation: the service method issuing the commands
+ * and the number of commands issued by the HTTP request being served.
+ * The sync driver notifies command listeners on the thread that runs the command. The reactive driver
+ * runs them on its own threads, so none of this state is bound under the reactive profile.
+ */
+final class MongoCommandContext {
+
+    static final String NO_ORIGIN = "none";
+
+    private static final ThreadLocal<String> ORIGIN = new ThreadLocal<>();
+
+    private static final ThreadLocal<int[]> REQUEST_COMMANDS = new ThreadLocal<>();
+
+    private MongoCommandContext() {
+    }
+
+    static String origin() {
+        String origin = ORIGIN.get();
+        return Objects.nonNull(origin) ? origin : NO_ORIGIN;
+    }
+
+    static boolean hasOrigin() {
+        return Objects.nonNull(ORIGIN.get());
+    }
+
+    static void setOrigin(String origin) {
+        ORIGIN.set(origin);
+    }
+
+    static void clearOrigin() {
+        ORIGIN.remove();
+    }
+
+    static void startRequest() {
+        REQUEST_COMMANDS.set(new int[1]);
+    }
+
+    static void countCommand() {
+        int[] commands = REQUEST_COMMANDS.get();
+        if (Objects.nonNull(commands)) {
+            commands[0]++;
+        }
+    }
+
+    /**
+     * Ends the request bound to the thread
+     *
+     * @return the number of commands the request issued
+     */
+    static int endRequest() {
+        int[] commands = REQUEST_COMMANDS.get();
+        REQUEST_COMMANDS.remove();
+        return Objects.nonNull(commands) ? commands[0] : 0;
+    }
+}
@@ -0,0 +1,182 @@
+package com.jayatech.wishlist.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Times every Mongo command, tagged with the command name and the service method that issued it,
+ * and counts it for the HTTP request being served.
+ * Slow commands are explained on a background thread and logged with a summary of their plan,
+ * so the request that ran them does not wait for the explain.
+ */
+@Slf4j
+public class MongoCommandRecorder implements CommandListener {
+
+    public static final String COMMAND_TIMER = "wishlist.mongo.command";
+    public static final String DOCS_EXAMINED_SUMMARY = "wishlist.mongo.docs.examined";
+
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct",
+            "update", "delete", "findAndModify");
+
+    private static final ThreadLocal<Boolean> EXPLAINING = ThreadLocal.withInitial(() -> false);
+
+    private final MeterRegistry meterRegistry;
+
+    private final ObjectProvider<MongoClient> mongoClient;
+
+    private final Duration slowCommandThreshold;
+
+    private final Map<Integer, StartedCommand> started = new ConcurrentHashMap<>();
+
+    private final ExecutorService explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), runnable -> {
+                Thread thread = new Thread(runnable, "mongo-slow-command-explainer");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    public MongoCommandRecorder(MeterRegistry meterRegistry, ObjectProvider<MongoClient> mongoClient,
+                                Duration slowCommandThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.mongoClient = mongoClient;
+        this.slowCommandThreshold = slowCommandThreshold;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (EXPLAINING.get()) {
+            return;
+        }
+        MongoCommandContext.countCommand();
+        //The command document may be released once the event returns, so only explainable ones are copied.
+        BsonDocument command = EXPLAINABLE.contains(event.getCommandName()) ? event.getCommand().clone() : null;
+        started.put(event.getRequestId(), new StartedCommand(MongoCommandContext.origin(), event.getDatabaseName(), command));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        StartedCommand command = started.remove(event.getRequestId());
+        if (Objects.isNull(command)) {
+            return;
+        }
+        long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        this.record(event.getCommandName(), command.getOrigin(), "success", elapsed);
+        if (elapsed >= slowCommandThreshold.toNanos()) {
+            explainer.execute(() -> this.explain(event.getCommandName(), command, elapsed));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        StartedCommand command = started.remove(event.getRequestId());
+        if (Objects.nonNull(command)) {
+            this.record(event.getCommandName(), command.getOrigin(), "failure", event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private void record(String commandName, String origin, String outcome, long elapsedNanos) {
+        Timer.builder(COMMAND_TIMER)
+                .description("Latency of the Mongo commands issued by each service method")
+                .tag("command", commandName)
+                .tag("origin", origin)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Logs a slow command with the plan the server picks for it, and records how many documents it examined
+     */
+    void explain(String commandName, StartedCommand command, long elapsedNanos) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        MongoClient client = mongoClient.getIfAvailable();
+        if (Objects.isNull(command.getCommand()) || Objects.isNull(client)) {
+            log.warn("Slow Mongo command {} from {} took {}ms", commandName, command.getOrigin(), elapsedMillis);
+            return;
+        }
+        EXPLAINING.set(true);
+        try {
+            Document explained = client.getDatabase(command.getDatabase()).runCommand(new BsonDocument("explain", explainable(command.getCommand()))
+                    .append("verbosity", new BsonString("executionStats")));
+            Document stats = explained.get("executionStats", new Document());
+            Number docsExamined = stats.get("totalDocsExamined", Number.class);
+            if (Objects.nonNull(docsExamined)) {
+                DistributionSummary.builder(DOCS_EXAMINED_SUMMARY)
+                        .description("Documents examined by the slow Mongo commands")
+                        .tag("command", commandName)
+                        .tag("origin", command.getOrigin())
+                        .register(meterRegistry)
+                        .record(docsExamined.doubleValue());
+            }
+            log.warn("Slow Mongo command {} from {} took {}ms: {}", commandName, command.getOrigin(), elapsedMillis, summarize(explained));
+        } catch (Exception e) {
+            log.warn("Slow Mongo command {} from {} took {}ms, explain failed: {}", commandName, command.getOrigin(), elapsedMillis, e.getMessage());
+        } finally {
+            EXPLAINING.set(false);
+        }
+    }
+
+    /**
+     * Drops the session, transaction and routing fields the driver adds, which explain rejects
+     */
+    static BsonDocument explainable(BsonDocument command) {
+        BsonDocument explainable = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !"lsid".equals(key) && !"txnNumber".equals(key)) {
+                explainable.append(key, value);
+            }
+        });
+        return explainable;
+    }
+
+    /**
+     * Summarizes an explain result as its winning plan stages followed by its execution counters
+     */
+    static String summarize(Document explained) {
+        List<String> stages = new ArrayList<>();
+        Document queryPlanner = explained.get("queryPlanner", new Document());
+        Object plan = queryPlanner.get("winningPlan");
+        while (plan instanceof Document stage) {
+            if (stage.containsKey("queryPlan")) {
+                plan = stage.get("queryPlan");
+                continue;
+            }
+            String name = stage.getString("stage");
+            if (Objects.nonNull(name)) {
+                stages.add(stage.containsKey("indexName") ? name + "(" + stage.getString("indexName") + ")" : name);
+            }
+            plan = stage.get("inputStage");
+        }
+        Collections.reverse(stages);
+        Document stats = explained.get("executionStats", new Document());
+        return String.join(" > ", stages)
+                + ", keys examined " + stats.get("totalKeysExamined")
+                + ", docs examined " + stats.get("totalDocsExamined")
+                + ", returned " + stats.get("nReturned")
+                + ", server time " + stats.get("executionTimeMillis") + "ms";
+    }
+
+    @Value
+    static class StartedCommand {
+        String origin;
+        String database;
+        BsonDocument command;
+    }
+}
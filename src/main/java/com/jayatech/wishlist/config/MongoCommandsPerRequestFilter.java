@@ -0,0 +1,55 @@
+package com.jayatech.wishlist.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Counts the Mongo commands each HTTP request issues, per route, so a lookup fan-out shows up
+ * as a growing count instead of hiding inside the request latency.
+ */
+@Slf4j
+public class MongoCommandsPerRequestFilter extends OncePerRequestFilter {
+
+    public static final String COMMANDS_PER_REQUEST_SUMMARY = "wishlist.mongo.commands.per.request";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int commandsPerRequestWarning;
+
+    public MongoCommandsPerRequestFilter(MeterRegistry meterRegistry, int commandsPerRequestWarning) {
+        this.meterRegistry = meterRegistry;
+        this.commandsPerRequestWarning = commandsPerRequestWarning;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        MongoCommandContext.startRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int commands = MongoCommandContext.endRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = Objects.nonNull(pattern) ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder(COMMANDS_PER_REQUEST_SUMMARY)
+                    .description("Number of Mongo commands issued by each HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(commands);
+            if (commands > commandsPerRequestWarning) {
+                log.warn("{} {} issued {} Mongo commands", request.getMethod(), uri, commands);
+            }
+        }
+    }
+}
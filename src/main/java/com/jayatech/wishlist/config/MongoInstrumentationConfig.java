@@ -0,0 +1,50 @@
+package com.jayatech.wishlist.config;
+
+import com.mongodb.client.MongoClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@EnableConfigurationProperties(MongoInstrumentationProperties.class)
+@ConditionalOnProperty(prefix = "wishlist.mongo.instrumentation", name = "enabled", matchIfMissing = true)
+public class MongoInstrumentationConfig {
+
+    /**
+     * The client is looked up lazily, as the recorder is registered while the client is being built
+     * and only needs it to explain slow commands.
+     */
+    @Bean
+    public MongoCommandRecorder mongoCommandRecorder(MeterRegistry meterRegistry, ObjectProvider<MongoClient> mongoClient,
+                                                     MongoInstrumentationProperties properties) {
+        return new MongoCommandRecorder(meterRegistry, mongoClient, properties.getSlowCommandThreshold());
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandListenerCustomizer(MongoCommandRecorder recorder) {
+        return builder -> builder.addCommandListener(recorder);
+    }
+
+    /**
+     * The origin is bound to the calling thread, so it is left out of the reactive profile, where the services
+     * return before their commands run on the driver threads, and those commands are tagged with no origin.
+     */
+    @Bean
+    @Profile("!reactive")
+    public ServiceOriginAspect serviceOriginAspect() {
+        return new ServiceOriginAspect();
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MongoCommandsPerRequestFilter mongoCommandsPerRequestFilter(MeterRegistry meterRegistry,
+                                                                       MongoInstrumentationProperties properties) {
+        return new MongoCommandsPerRequestFilter(meterRegistry, properties.getCommandsPerRequestWarning());
+    }
+}
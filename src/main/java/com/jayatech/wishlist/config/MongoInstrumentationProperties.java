@@ -0,0 +1,26 @@
+package com.jayatech.wishlist.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "wishlist.mongo.instrumentation")
+public class MongoInstrumentationProperties {
+
+    /**
+     * Whether Mongo commands are timed, tagged with their origin and counted per HTTP request.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Commands taking longer are logged with the summary of their explain plan.
+     */
+    private Duration slowCommandThreshold = Duration.ofMillis(100);
+
+    /**
+     * HTTP requests issuing more commands are logged, as they usually hide a fan-out of lookups.
+     */
+    private int commandsPerRequestWarning = 10;
+}
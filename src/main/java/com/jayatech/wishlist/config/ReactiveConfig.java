@@ -0,0 +1,24 @@
+package com.jayatech.wishlist.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * The reactive profile serves the API with WebFlux over the reactive Mongo driver.
+ * Migrations and the index audit keep using the blocking client, as they only run on startup.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    /**
+     * Tomcat is on the classpath for the servlet stack and would otherwise be picked for WebFlux too.
+     * Netty serves every connection from a few event loop threads.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,27 @@
+package com.jayatech.wishlist.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Binds the service method being called to the thread, so the Mongo commands it issues are tagged with it.
+ * Only the outermost call is kept, as it is the operation the request asked for.
+ */
+@Aspect
+public class ServiceOriginAspect {
+
+    @Around("within(com.jayatech.wishlist.domain.service..*)")
+    public Object bindOrigin(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (MongoCommandContext.hasOrigin()) {
+            return joinPoint.proceed();
+        }
+        MongoCommandContext.setOrigin(joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            MongoCommandContext.clearOrigin();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.jayatech.wishlist.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every Tomcat request on its own virtual thread instead of the bounded worker pool, when enabled.
+ * The Mongo calls of a request are made by the sync driver on the calling thread, so they run on
+ * the virtual thread too and release the carrier while waiting on the socket. The concurrency is then
+ * bounded by the Mongo connection pool (spring.data.mongodb.uri maxPoolSize) instead of server.tomcat.threads.max.
+ * Virtual threads need Java 21, the build keeps targeting 17, so the executor is looked up at runtime.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "wishlist.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        log.info("Tomcat requests run on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("wishlist.virtual-threads.enabled requires Java 21 or later, running on "
+                    + Runtime.version().feature());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.jayatech.wishlist.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "wishlist.cache")
+public class WishlistCacheProperties {
+
+    private Products products = new Products();
+
+    private Wishlists wishlists = new Wishlists();
+
+    private WishlistIds wishlistIds = new WishlistIds();
+
+    private Invalidation invalidation = new Invalidation();
+
+    @Data
+    public static class Products {
+
+        /**
+         * Maximum number of products kept in memory.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Time after which a cached product is loaded again from the database.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Wishlists {
+
+        /**
+         * Whether hydrated wishlists are cached. When disabled every read goes to the database.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum weight kept in memory, where each wishlist weighs one plus its number of items.
+         */
+        private long maximumWeight = 100_000;
+
+        /**
+         * Time after which a cached wishlist is loaded again from the database.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class WishlistIds {
+
+        /**
+         * Maximum number of userId to wishlistId entries kept in memory.
+         */
+        private long maximumSize = 100_000;
+
+        /**
+         * Time after which the wishlist id of a user is looked up again.
+         */
+        private Duration expireAfterWrite = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Invalidation {
+
+        /**
+         * Whether the caches follow the change streams of the products and wishlists collections,
+         * so writes made by other instances evict the local entries. Change streams need a replica set.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Name the resume token is stored under, required when enabled. It has to stay the same across
+         * restarts, such as a stateful set ordinal, so an instance restarted under it resumes from the last event it processed.
+         */
+        private String listenerId;
+
+        /**
+         * Minimum interval between two writes of the resume token.
+         */
+        private Duration tokenSaveInterval = Duration.ofSeconds(1);
+
+        /**
+         * Time waited before the change stream is opened again after a failure.
+         */
+        private Duration retryDelay = Duration.ofSeconds(5);
+
+        /**
+         * Time the instance propagating the product snapshots of the events holds the propagation without renewing it.
+         * Every instance receives the events, but only the holder propagates them and the others only evict.
+         * The events arriving while the lease of a stopped holder runs out are left to the snapshot sweep.
+         */
+        private Duration propagationLease = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,15 @@
+package com.jayatech.wishlist.domain.exception;
+
+/**
+ * Expected rejection of a request, answered with a 4xx status. These are raised on normal traffic,
+ * such as unknown ids or products already on a wishlist, and the handlers only read their message,
+ * so they are built without capturing a stack trace nor collecting suppressed exceptions.
+ */
+public abstract class BusinessException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    protected BusinessException(String msg) {
+        super(msg, null, false, false);
+    }
+}
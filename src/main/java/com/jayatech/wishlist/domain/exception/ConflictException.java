@@ -0,0 +1,11 @@
+package com.jayatech.wishlist.domain.exception;
+
+public class ConflictException extends BusinessException {
+
+    private static final long serialVersionUID = 1L;
+    public static final String EXCEPTION_MESSAGE = "conflict.exception";
+
+    public ConflictException(String msg) {
+        super(msg);
+    }
+}
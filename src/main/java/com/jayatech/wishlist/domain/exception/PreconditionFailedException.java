@@ -0,0 +1,11 @@
+package com.jayatech.wishlist.domain.exception;
+
+public class PreconditionFailedException extends BusinessException {
+
+    private static final long serialVersionUID = 1L;
+    public static final String EXCEPTION_MESSAGE = "precondition.failed.exception";
+
+    public PreconditionFailedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,88 @@
+package com.jayatech.wishlist.domain.exception;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.time.Duration;
+
+import static com.jayatech.wishlist.config.MetricsConfig.EXCEPTIONS_COUNTER;
+
+/**
+ * Answers the exceptions of the reactive controllers with the same StandardError bodies as {@link ResourceExceptionHandler}
+ */
+@Profile("reactive")
+@ControllerAdvice
+@Slf4j
+public class ReactiveResourceExceptionHandler {
+
+    private final MeterRegistry meterRegistry;
+
+    private final RejectionLogger rejectionLogger;
+
+    @Autowired
+    public ReactiveResourceExceptionHandler(MeterRegistry meterRegistry,
+                                            @Value("${wishlist.exceptions.log-interval:1m}") Duration logInterval) {
+        this.meterRegistry = meterRegistry;
+        this.rejectionLogger = new RejectionLogger(log, logInterval);
+    }
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<StandardError> objectNotFound(ResourceNotFoundException e, ServerHttpRequest request) {
+        return this.rejection(HttpStatus.NOT_FOUND, ResourceNotFoundException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(WishlistFoundException.class)
+    public ResponseEntity<StandardError> wishlistFound(WishlistFoundException e, ServerHttpRequest request) {
+        return this.rejection(HttpStatus.BAD_REQUEST, WishlistFoundException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(RegisteredProductException.class)
+    public ResponseEntity<StandardError> registeredProduct(RegisteredProductException e, ServerHttpRequest request) {
+        return this.rejection(HttpStatus.BAD_REQUEST, RegisteredProductException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(WishlistMaxSizeException.class)
+    public ResponseEntity<StandardError> wishlistMaximumSize(WishlistMaxSizeException e, ServerHttpRequest request) {
+        return this.rejection(HttpStatus.BAD_REQUEST, WishlistMaxSizeException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(UnknownViewException.class)
+    public ResponseEntity<StandardError> unknownView(UnknownViewException e, ServerHttpRequest request) {
+        return this.rejection(HttpStatus.BAD_REQUEST, UnknownViewException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<StandardError> preconditionFailed(PreconditionFailedException e, ServerHttpRequest request) {
+        return this.rejection(HttpStatus.PRECONDITION_FAILED, PreconditionFailedException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<StandardError> conflict(ConflictException e, ServerHttpRequest request) {
+        return this.rejection(HttpStatus.CONFLICT, ConflictException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(InternalErrorException.class)
+    public ResponseEntity<StandardError> internalError(InternalErrorException e, ServerHttpRequest request) {
+        log.error("Internal error status=500 message={} path={}", e.getMessage(), request.getPath().value());
+        return this.error(HttpStatus.INTERNAL_SERVER_ERROR, InternalErrorException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    private ResponseEntity<StandardError> rejection(HttpStatus status, String error, BusinessException e, ServerHttpRequest request) {
+        rejectionLogger.log(status, e, request.getPath().value());
+        return this.error(status, error, e, request);
+    }
+
+    private ResponseEntity<StandardError> error(HttpStatus status, String error, RuntimeException e, ServerHttpRequest request) {
+        StandardError err = new StandardError(System.currentTimeMillis(), status.value(), error, e.getMessage(), request.getPath().value());
+        meterRegistry.counter(EXCEPTIONS_COUNTER, "exception", e.getClass().getSimpleName()).increment();
+        return ResponseEntity.status(status).body(err);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jayatech.wishlist.domain.exception;
+
+import org.slf4j.Logger;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Logs the expected rejections answered by the exception handlers at most once per interval and exception type,
+ * with the number of rejections of that type since the previous line. Every rejection is still counted
+ * by the wishlist.exceptions counter, and with debug enabled each one is logged.
+ */
+final class RejectionLogger {
+
+    private final Logger log;
+
+    private final long intervalNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Map<Class<?>, Window> windows = new ConcurrentHashMap<>();
+
+    RejectionLogger(Logger log, Duration interval) {
+        this(log, interval, System::nanoTime);
+    }
+
+    RejectionLogger(Logger log, Duration interval, LongSupplier nanoClock) {
+        this.log = log;
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @param status is the answered status
+     * @param e is the rejection
+     * @param path is the requested path
+     * @return true when a line was written for the rejection
+     */
+    boolean log(HttpStatus status, RuntimeException e, String path) {
+        if (log.isDebugEnabled()) {
+            log.debug("Rejected request status={} exception={} message={} path={}",
+                    status.value(), e.getClass().getSimpleName(), e.getMessage(), path);
+            return true;
+        }
+        Window window = windows.computeIfAbsent(e.getClass(), type -> new Window(nanoClock.getAsLong()));
+        window.rejections.incrementAndGet();
+        long now = nanoClock.getAsLong();
+        long logAt = window.logAt.get();
+        if (now - logAt < 0 || !window.logAt.compareAndSet(logAt, now + intervalNanos)) {
+            return false;
+        }
+        log.info("Rejected requests status={} exception={} count={} lastMessage={} lastPath={}",
+                status.value(), e.getClass().getSimpleName(), window.rejections.getAndSet(0), e.getMessage(), path);
+        return true;
+    }
+
+    private static final class Window {
+
+        private final AtomicLong logAt;
+
+        private final AtomicLong rejections = new AtomicLong();
+
+        private Window(long logAt) {
+            this.logAt = new AtomicLong(logAt);
+        }
+    }
+}
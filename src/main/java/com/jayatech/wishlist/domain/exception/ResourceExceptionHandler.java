@@ -1,52 +1,98 @@
 package com.jayatech.wishlist.domain.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.time.Duration;
+
+import static com.jayatech.wishlist.config.MetricsConfig.EXCEPTIONS_COUNTER;
+
+/**
+ * Answers the exceptions of the controllers with StandardError bodies.
+ * Every exception is counted, while the expected rejections are only logged once per
+ * wishlist.exceptions.log-interval and type, so bursts of 4xx answers do not flood the log.
+ */
+@Profile("!reactive")
 @ControllerAdvice
 @Slf4j
 public class ResourceExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    private final RejectionLogger rejectionLogger;
+
+    @Autowired
+    public ResourceExceptionHandler(MeterRegistry meterRegistry,
+                                    @Value("${wishlist.exceptions.log-interval:1m}") Duration logInterval) {
+        this.meterRegistry = meterRegistry;
+        this.rejectionLogger = new RejectionLogger(log, logInterval);
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<StandardError> objectNotFound(ResourceNotFoundException e, HttpServletRequest request) {
-        StandardError err = new StandardError(System.currentTimeMillis(), HttpStatus.NOT_FOUND.value(), ResourceNotFoundException.EXCEPTION_MESSAGE, e.getMessage(), request.getRequestURI());
-        log.error(e.getMessage() + " " + ResourceNotFoundException.class.getName());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(err);
-
+        return this.rejection(HttpStatus.NOT_FOUND, ResourceNotFoundException.EXCEPTION_MESSAGE, e, request);
     }
 
     @ExceptionHandler(WishlistFoundException.class)
     public ResponseEntity<StandardError> wishlistFound(WishlistFoundException e, HttpServletRequest request) {
-        StandardError err = new StandardError(System.currentTimeMillis(), HttpStatus.BAD_REQUEST.value(), WishlistFoundException.EXCEPTION_MESSAGE, e.getMessage(), request.getRequestURI());
-        log.error(e.getMessage() + " " + WishlistFoundException.class.getName());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
-
+        return this.rejection(HttpStatus.BAD_REQUEST, WishlistFoundException.EXCEPTION_MESSAGE, e, request);
     }
 
     @ExceptionHandler(RegisteredProductException.class)
     public ResponseEntity<StandardError> registeredProduct(RegisteredProductException e, HttpServletRequest request) {
-        StandardError err = new StandardError(System.currentTimeMillis(), HttpStatus.BAD_REQUEST.value(), RegisteredProductException.EXCEPTION_MESSAGE, e.getMessage(), request.getRequestURI());
-        log.error(e.getMessage() + " " + RegisteredProductException.class.getName());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
+        return this.rejection(HttpStatus.BAD_REQUEST, RegisteredProductException.EXCEPTION_MESSAGE, e, request);
     }
 
     @ExceptionHandler(WishlistMaxSizeException.class)
     public ResponseEntity<StandardError> wishlistMaximumSize(WishlistMaxSizeException e, HttpServletRequest request) {
-        StandardError err = new StandardError(System.currentTimeMillis(), HttpStatus.BAD_REQUEST.value(), WishlistMaxSizeException.EXCEPTION_MESSAGE, e.getMessage(), request.getRequestURI());
-        log.error(e.getMessage() + " " + WishlistMaxSizeException.class.getName());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
+        return this.rejection(HttpStatus.BAD_REQUEST, WishlistMaxSizeException.EXCEPTION_MESSAGE, e, request);
+    }
 
+    @ExceptionHandler(UnknownViewException.class)
+    public ResponseEntity<StandardError> unknownView(UnknownViewException e, HttpServletRequest request) {
+        return this.rejection(HttpStatus.BAD_REQUEST, UnknownViewException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<StandardError> preconditionFailed(PreconditionFailedException e, HttpServletRequest request) {
+        return this.rejection(HttpStatus.PRECONDITION_FAILED, PreconditionFailedException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<StandardError> conflict(ConflictException e, HttpServletRequest request) {
+        return this.rejection(HttpStatus.CONFLICT, ConflictException.EXCEPTION_MESSAGE, e, request);
     }
 
     @ExceptionHandler(InternalErrorException.class)
     public ResponseEntity<StandardError> internalError(InternalErrorException e, HttpServletRequest request) {
-        StandardError err = new StandardError(System.currentTimeMillis(), HttpStatus.INTERNAL_SERVER_ERROR.value(), InternalErrorException.EXCEPTION_MESSAGE, e.getMessage(), request.getRequestURI());
-        log.error(e.getMessage() + " " + InternalErrorException.class.getName());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(err);
+        log.error("Internal error status=500 message={} path={}", e.getMessage(), request.getRequestURI());
+        return this.error(HttpStatus.INTERNAL_SERVER_ERROR, InternalErrorException.EXCEPTION_MESSAGE, e, request);
+    }
+
+    private ResponseEntity<StandardError> rejection(HttpStatus status, String error, BusinessException e, HttpServletRequest request) {
+        rejectionLogger.log(status, e, request.getRequestURI());
+        return this.error(status, error, e, request);
+    }
+
+    private ResponseEntity<StandardError> error(HttpStatus status, String error, RuntimeException e, HttpServletRequest request) {
+        StandardError err = new StandardError(System.currentTimeMillis(), status.value(), error, e.getMessage(), request.getRequestURI());
+        this.count(e);
+        return ResponseEntity.status(status).body(err);
+    }
 
+    /**
+     * Counts the exceptions answered by this handler, tagged by their type only,
+     * since internal errors carry free-form messages
+     */
+    private void count(RuntimeException e) {
+        meterRegistry.counter(EXCEPTIONS_COUNTER, "exception", e.getClass().getSimpleName()).increment();
     }
 }
@@ -1,6 +1,6 @@
 package com.jayatech.wishlist.domain.exception;
 
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends BusinessException {
 
     private static final long serialVersionUID = 1L;
     public static final String EXCEPTION_MESSAGE = "resource.not.found.exception";
@@ -0,0 +1,11 @@
+package com.jayatech.wishlist.domain.exception;
+
+public class UnknownViewException extends BusinessException {
+
+    private static final long serialVersionUID = 1L;
+    public static final String EXCEPTION_MESSAGE = "unknown.view.exception";
+
+    public UnknownViewException(String msg) {
+        super(msg);
+    }
+}
@@ -1,6 +1,6 @@
 package com.jayatech.wishlist.domain.exception;
 
-public class WishlistFoundException extends RuntimeException {
+public class WishlistFoundException extends BusinessException {
 
     private static final long serialVersionUID = 1L;
     public static final String EXCEPTION_MESSAGE = "wishlist.found.exception";
@@ -1,6 +1,6 @@
 package com.jayatech.wishlist.domain.exception;
 
-public class WishlistMaxSizeException extends RuntimeException {
+public class WishlistMaxSizeException extends BusinessException {
 
     private static final long serialVersionUID = 1L;
     public static final String EXCEPTION_MESSAGE = "wishlist.maximum.size.exception";
@@ -3,17 +3,20 @@ package com.jayatech.wishlist.domain.model;
 import lombok.Builder;
 import lombok.Getter;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 import java.time.Instant;
 
-@Builder
+/**
+ * An item of a Wishlist. The product is embedded as a snapshot of the stored Product,
+ * so a wishlist is read with a single document fetch. Snapshots are kept up to date
+ * by the ProductSnapshotPropagator when the products change.
+ */
+@Builder(toBuilder = true)
 @Getter
 public class WishListItem {
 
     @Id
     private String id;
     private Instant createdAt;
-    @DBRef
     private Product product;
 }
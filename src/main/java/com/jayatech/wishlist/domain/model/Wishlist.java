@@ -1,9 +1,11 @@
 package com.jayatech.wishlist.domain.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -21,4 +23,12 @@ public class Wishlist {
     private Instant createdAt;
     private Instant updatedAt;
     private List<WishListItem> wishListItems;
+    /**
+     * Incremented by every write to the wishlist, including the product snapshot updates.
+     * It is served as the ETag of the wishlist instead of in its body, and an If-Match
+     * on a mutation only applies it while the wishlist is still on the same version.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
 }
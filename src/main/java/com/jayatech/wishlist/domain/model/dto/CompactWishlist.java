@@ -0,0 +1,73 @@
+package com.jayatech.wishlist.domain.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A Wishlist as served by the compact and ids views. It keeps the shape of the full wishlist, with the number
+ * of items added, but leaves out the fields without a value, and the ids view keeps only the id of each product.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactWishlist {
+
+    private String id;
+    private String userId;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private int size;
+    private List<Item> wishListItems;
+
+    public static CompactWishlist of(Wishlist wishlist, WishlistView view) {
+        List<Item> items = new ArrayList<>();
+        if (Objects.nonNull(wishlist.getWishListItems())) {
+            for (WishListItem item : wishlist.getWishListItems()) {
+                items.add(new Item(item.getId(), item.getCreatedAt(), ItemProduct.of(item.getProduct(), view)));
+            }
+        }
+        return new CompactWishlist(wishlist.getId(), wishlist.getUserId(), wishlist.getCreatedAt(), wishlist.getUpdatedAt(),
+                items.size(), items);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item {
+
+        private String id;
+        private Instant createdAt;
+        private ItemProduct product;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemProduct {
+
+        private String id;
+        private String name;
+        private BigDecimal price;
+        private String description;
+
+        static ItemProduct of(Product product, WishlistView view) {
+            if (Objects.isNull(product)) {
+                return null;
+            }
+            if (view == WishlistView.IDS) {
+                return new ItemProduct(product.getId(), null, null, null);
+            }
+            return new ItemProduct(product.getId(), product.getName(), product.getPrice(), product.getDescription());
+        }
+    }
+}
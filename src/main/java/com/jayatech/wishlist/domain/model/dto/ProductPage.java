@@ -0,0 +1,15 @@
+package com.jayatech.wishlist.domain.model.dto;
+
+import com.jayatech.wishlist.domain.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductPage {
+
+    private List<Product> products;
+    private String next;
+}
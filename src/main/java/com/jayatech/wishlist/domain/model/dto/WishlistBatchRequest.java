@@ -0,0 +1,24 @@
+package com.jayatech.wishlist.domain.model.dto;
+
+import lombok.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Items to add to and remove from a Wishlist at once. Removals are applied first,
+ * so a batch can make room for the products it adds.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WishlistBatchRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private List<String> add;
+    private List<String> remove;
+}
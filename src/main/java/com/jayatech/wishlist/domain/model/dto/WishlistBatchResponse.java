@@ -0,0 +1,15 @@
+package com.jayatech.wishlist.domain.model.dto;
+
+import com.jayatech.wishlist.domain.model.Wishlist;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class WishlistBatchResponse {
+
+    private Wishlist wishlist;
+    private List<WishlistBatchResult> results;
+}
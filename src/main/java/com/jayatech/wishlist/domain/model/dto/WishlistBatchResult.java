@@ -0,0 +1,29 @@
+package com.jayatech.wishlist.domain.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The outcome of one entry of a batch. A rejected entry carries the message of the exception
+ * the single item endpoints answer with, and leaves the rest of the batch applied.
+ */
+@Data
+@AllArgsConstructor
+public class WishlistBatchResult {
+
+    public static final String ADD = "add";
+    public static final String REMOVE = "remove";
+    public static final String ADDED = "added";
+    public static final String REMOVED = "removed";
+
+    private String operation;
+    private String id;
+    private String itemId;
+    private String status;
+
+    @JsonIgnore
+    public boolean isApplied() {
+        return ADDED.equals(status) || REMOVED.equals(status);
+    }
+}
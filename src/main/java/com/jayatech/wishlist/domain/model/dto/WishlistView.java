@@ -0,0 +1,46 @@
+package com.jayatech.wishlist.domain.model.dto;
+
+import com.jayatech.wishlist.domain.exception.UnknownViewException;
+
+import java.util.Locale;
+
+/**
+ * How much of a Wishlist a read serves
+ */
+public enum WishlistView {
+
+    /**
+     * Every field of the wishlist and of its product snapshots
+     */
+    FULL,
+
+    /**
+     * The whole wishlist leaving out the fields without a value
+     */
+    COMPACT,
+
+    /**
+     * The items with only the id of their product, read with a projection leaving out the product details
+     */
+    IDS;
+
+    /**
+     * Reads the view of a request parameter, ignoring case
+     *
+     * @param value is the parameter value
+     * @return the matching view
+     * @throws UnknownViewException when there is no such view
+     */
+    public static WishlistView of(String value) {
+        for (WishlistView view : values()) {
+            if (view.name().equalsIgnoreCase(value)) {
+                return view;
+            }
+        }
+        throw new UnknownViewException("Unknown wishlist view " + value + ", expected full, compact or ids");
+    }
+
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
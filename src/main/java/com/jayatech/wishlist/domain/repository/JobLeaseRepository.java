@@ -0,0 +1,79 @@
+package com.jayatech.wishlist.domain.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Leases of the scheduled jobs, so a job scheduled on every instance runs on one of them per period.
+ * A lease is a document keyed by the job name holding the time it is taken until, and the holder of
+ * the leases renewed by the instance holding them.
+ */
+@Repository
+public class JobLeaseRepository {
+
+    static final String COLLECTION = "jobLeases";
+
+    private static final String LEASED_UNTIL = "leasedUntil";
+
+    private static final String HOLDER = "holder";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public JobLeaseRepository(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Takes the lease of a job when no instance holds it
+     *
+     * @param job is the job name
+     * @param period is how long the lease is held, which is the least time between two runs of the job
+     * @return true when this instance took the lease and runs the job
+     */
+    public boolean tryAcquire(String job, Duration period) {
+        Instant now = Instant.now();
+        return this.tryUpsert(Filters.and(Filters.eq("_id", job), Filters.lte(LEASED_UNTIL, Date.from(now))),
+                Updates.set(LEASED_UNTIL, Date.from(now.plus(period))));
+    }
+
+    /**
+     * Takes the lease of a job when no instance holds it, or renews it when the given holder already does,
+     * so the job keeps running on the same instance until it stops renewing the lease
+     *
+     * @param job is the job name
+     * @param period is how long the lease is held without being renewed
+     * @param holder is the name of the instance, stable across its restarts
+     * @return true when the holder took or renewed the lease and runs the job
+     */
+    public boolean tryHold(String job, Duration period, String holder) {
+        Instant now = Instant.now();
+        return this.tryUpsert(Filters.and(Filters.eq("_id", job),
+                        Filters.or(Filters.lte(LEASED_UNTIL, Date.from(now)), Filters.eq(HOLDER, holder))),
+                Updates.combine(Updates.set(LEASED_UNTIL, Date.from(now.plus(period))), Updates.set(HOLDER, holder)));
+    }
+
+    private boolean tryUpsert(Bson lease, Bson update) {
+        try {
+            //A lease still held is not matched, so the upsert collides with its _id instead of taking it.
+            mongoTemplate.getCollection(COLLECTION).updateOne(lease, update, new UpdateOptions().upsert(true));
+            return true;
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return false;
+            }
+            throw e;
+        }
+    }
+}
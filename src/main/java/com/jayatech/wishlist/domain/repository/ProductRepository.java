@@ -1,7 +1,20 @@
 package com.jayatech.wishlist.domain.repository;
 
 import com.jayatech.wishlist.domain.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 public interface ProductRepository extends MongoRepository<Product, String> {
+
+    List<Product> findAllBy(Pageable pageable);
+
+    /**
+     * The id is compared as given, since range operators are not converted to ObjectId by the mapping layer
+     */
+    List<Product> findByIdGreaterThan(Object id, Pageable pageable);
+
+    Stream<Product> streamAllBy();
 }
@@ -0,0 +1,42 @@
+package com.jayatech.wishlist.domain.repository;
+
+import lombok.Value;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.List;
+
+import static com.jayatech.wishlist.domain.repository.WishlistQueries.*;
+
+/**
+ * A filter the repositories send to the database, with sample values in place of the request ones.
+ * The shapes are explained on startup to find the queries that are not backed by an index.
+ */
+@Value
+public class QueryShape {
+
+    private static final String PRODUCTS = "products";
+
+    String collection;
+    String name;
+    Bson filter;
+
+    /**
+     * Lists the filters issued on the request paths. One-off migration filters are left out.
+     *
+     * @return every query shape of the repositories
+     */
+    public static List<QueryShape> all() {
+        String wishlistId = new ObjectId().toHexString();
+        String productId = new ObjectId().toHexString();
+        return List.of(
+                new QueryShape(COLLECTION, "findById", byId(wishlistId)),
+                new QueryShape(COLLECTION, "findIdByUserId", byUserId("userId")),
+                new QueryShape(COLLECTION, "pushItem", canPushItem(wishlistId, productId, 20)),
+                new QueryShape(COLLECTION, "updateProductSnapshots", hasStaleSnapshot(productId, new Document("name", "name"))),
+                new QueryShape(COLLECTION, "pullItem", hasItem(wishlistId, "wishListItemId")),
+                new QueryShape(PRODUCTS, "findAllById", new Document(ID, new Document("$in", List.of(new ObjectId())))),
+                new QueryShape(PRODUCTS, "findByIdGreaterThan", new Document(ID, new Document("$gt", new ObjectId()))));
+    }
+}
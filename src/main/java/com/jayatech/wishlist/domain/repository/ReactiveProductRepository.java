@@ -0,0 +1,16 @@
+package com.jayatech.wishlist.domain.repository;
+
+import com.jayatech.wishlist.domain.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String> {
+
+    Flux<Product> findAllBy(Pageable pageable);
+
+    /**
+     * The id is compared as given, since range operators are not converted to ObjectId by the mapping layer
+     */
+    Flux<Product> findByIdGreaterThan(Object id, Pageable pageable);
+}
@@ -0,0 +1,7 @@
+package com.jayatech.wishlist.domain.repository;
+
+import com.jayatech.wishlist.domain.model.Wishlist;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveWishlistRepository extends ReactiveMongoRepository<Wishlist, String>, ReactiveWishlistRepositoryCustom {
+}
@@ -0,0 +1,89 @@
+package com.jayatech.wishlist.domain.repository;
+
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The non-blocking counterpart of {@link WishlistRepositoryCustom}, issuing the same filters and updates
+ */
+public interface ReactiveWishlistRepositoryCustom {
+
+    /**
+     * Retrieves a Wishlist projected down to the item holding a product
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param productId is the product identifier
+     * @return a Wishlist whose items are only the one holding the product, if any, or empty when it is not found
+     */
+    Mono<Wishlist> findItemsByProductId(String wishlistId, String productId);
+
+    /**
+     * Retrieves the identifiers of the products on a Wishlist, projecting only the item products
+     *
+     * @param wishlistId is the wishlist identifier
+     * @return the product identifiers of the wishlist items, or empty when the wishlist is not found
+     */
+    Mono<Set<String>> findProductIdsById(String wishlistId);
+
+    /**
+     * Retrieves a Wishlist whose item products hold only their id, leaving the snapshot details out of the query
+     *
+     * @param wishlistId is the wishlist identifier
+     * @return the Wishlist with the product ids of its items, or empty when it is not found
+     */
+    Mono<Wishlist> findWithProductIdsById(String wishlistId);
+
+    /**
+     * Retrieves the identifier of the Wishlist of a user, projecting nothing else
+     *
+     * @param userId is the identifier of the user the wishlist belongs to
+     * @return the wishlist identifier, or empty when the user has no wishlist
+     */
+    Mono<String> findIdByUserId(String userId);
+
+    /**
+     * Retrieves the version of a Wishlist, projecting nothing else
+     *
+     * @param wishlistId is the wishlist identifier
+     * @return the wishlist version, 0 when it was never written since the version exists, or empty when it is not found
+     */
+    Mono<Long> findVersionById(String wishlistId);
+
+    /**
+     * Appends an item to a Wishlist with a single conditional update, keeping the items in createdAt order.
+     * The update only applies while the item product is not on the wishlist
+     * and the wishlist holds fewer than maxSize items, on the expected version if any.
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param item is the wishlist item that will be appended
+     * @param maxSize is the maximum number of items of a wishlist
+     * @param expectedVersion is the version the wishlist must be on, or null for any
+     * @return the updated Wishlist, or empty when no wishlist matched the conditions
+     */
+    Mono<Wishlist> pushItem(String wishlistId, WishListItem item, int maxSize, Long expectedVersion);
+
+    /**
+     * Replaces the items of a Wishlist with a single update, only while the wishlist is still on the version
+     * the items were computed from, so a concurrent change is never overwritten
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param items are the wishlist items that will be stored, in createdAt order
+     * @param version is the version of the wishlist the items were computed from
+     * @return the updated Wishlist, or empty when the wishlist is gone or on another version
+     */
+    Mono<Wishlist> replaceItems(String wishlistId, List<WishListItem> items, long version);
+
+    /**
+     * Removes an item from a Wishlist with a single update, on the expected version if any
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param wishListItemId is the wishlist item identifier
+     * @param expectedVersion is the version the wishlist must be on, or null for any
+     * @return the updated Wishlist, or empty when the item is not on the wishlist or it is on another version
+     */
+    Mono<Wishlist> pullItem(String wishlistId, String wishListItemId, Long expectedVersion);
+}
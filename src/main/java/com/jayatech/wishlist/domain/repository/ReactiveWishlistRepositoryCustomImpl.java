@@ -0,0 +1,106 @@
+package com.jayatech.wishlist.domain.repository;
+
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static com.jayatech.wishlist.domain.repository.WishlistQueries.*;
+
+public class ReactiveWishlistRepositoryCustomImpl implements ReactiveWishlistRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    public ReactiveWishlistRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Wishlist> findItemsByProductId(String wishlistId, String productId) {
+        return mongoTemplate.execute(COLLECTION, collection -> collection.find(byId(wishlistId))
+                        .projection(itemWithProduct(productId))
+                        .first())
+                .next()
+                .map(this::read);
+    }
+
+    @Override
+    public Mono<Set<String>> findProductIdsById(String wishlistId) {
+        return mongoTemplate.execute(COLLECTION, collection -> collection.find(byId(wishlistId))
+                        .projection(itemProducts())
+                        .first())
+                .next()
+                .map(WishlistDocuments::productIdsOf);
+    }
+
+    @Override
+    public Mono<Wishlist> findWithProductIdsById(String wishlistId) {
+        return mongoTemplate.execute(COLLECTION, collection -> collection.find(byId(wishlistId))
+                        .projection(withoutProductDetails())
+                        .first())
+                .next()
+                .map(this::read);
+    }
+
+    @Override
+    public Mono<String> findIdByUserId(String userId) {
+        return mongoTemplate.execute(COLLECTION, collection -> collection.find(byUserId(userId))
+                        .projection(idOnly())
+                        .first())
+                .next()
+                .map(WishlistDocuments::idOf);
+    }
+
+    @Override
+    public Mono<Long> findVersionById(String wishlistId) {
+        return mongoTemplate.execute(COLLECTION, collection -> collection.find(byId(wishlistId))
+                        .projection(versionOnly())
+                        .first())
+                .next()
+                .map(WishlistDocuments::versionOf);
+    }
+
+    @Override
+    public Mono<Wishlist> pushItem(String wishlistId, WishListItem item, int maxSize, Long expectedVersion) {
+        return mongoTemplate.execute(COLLECTION, collection -> collection.findOneAndUpdate(
+                        atVersion(canPushItem(wishlistId, item.getProduct().getId(), maxSize), expectedVersion),
+                        WishlistQueries.pushItem(WishlistDocuments.toDocument(mongoTemplate.getConverter(), item), item.getCreatedAt()),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)))
+                .next()
+                .map(this::read);
+    }
+
+    @Override
+    public Mono<Wishlist> replaceItems(String wishlistId, List<WishListItem> items, long version) {
+        return mongoTemplate.execute(COLLECTION, collection -> collection.findOneAndUpdate(
+                        atVersion(byId(wishlistId), version),
+                        setItems(items.stream().map(item -> WishlistDocuments.toDocument(mongoTemplate.getConverter(), item)).toList(),
+                                Instant.now()),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)))
+                .next()
+                .map(this::read);
+    }
+
+    @Override
+    public Mono<Wishlist> pullItem(String wishlistId, String wishListItemId, Long expectedVersion) {
+        return mongoTemplate.execute(COLLECTION, collection -> collection.findOneAndUpdate(
+                        atVersion(hasItem(wishlistId, wishListItemId), expectedVersion),
+                        WishlistQueries.pullItem(wishListItemId, Instant.now()),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)))
+                .next()
+                .map(this::read);
+    }
+
+    private Wishlist read(Document document) {
+        return WishlistDocuments.read(mongoTemplate.getConverter(), document);
+    }
+}
@@ -0,0 +1,116 @@
+package com.jayatech.wishlist.domain.repository;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.*;
+
+import static com.jayatech.wishlist.domain.repository.WishlistQueries.*;
+
+/**
+ * Mapping between raw wishlist documents and Wishlists, shared by the blocking and the reactive repositories.
+ * It only converts in memory, so it never reaches the database.
+ */
+final class WishlistDocuments {
+
+    private static final String TYPE_KEY = "_class";
+
+    private WishlistDocuments() {
+    }
+
+    static Wishlist read(MongoConverter converter, Document document) {
+        return converter.read(Wishlist.class, document);
+    }
+
+    /**
+     * Converts an item the same way the mapping layer stores it inside a wishlist,
+     * with the product written as an embedded snapshot.
+     */
+    static Document toDocument(MongoConverter converter, WishListItem item) {
+        Document document = new Document();
+        converter.write(item, document);
+        document.remove(TYPE_KEY);
+        return document;
+    }
+
+    /**
+     * Converts a product to the snapshot embedded in the wishlist items
+     */
+    static Document snapshotOf(MongoConverter converter, Product product) {
+        Document document = new Document();
+        converter.write(product, document);
+        document.remove(TYPE_KEY);
+        return document;
+    }
+
+    /**
+     * Reads the product identifiers of a wishlist document projected down to its item products
+     */
+    static Set<String> productIdsOf(Document document) {
+        Set<String> productIds = new HashSet<>();
+        List<Document> items = document.getList(ITEMS, Document.class);
+        if (items != null) {
+            for (Document item : items) {
+                if (item.get(PRODUCT) instanceof Document product && product.get(ID) != null) {
+                    productIds.add(product.get(ID).toString());
+                }
+            }
+        }
+        return productIds;
+    }
+
+    /**
+     * Reads the identifier of a wishlist document the way the mapping layer exposes it,
+     * the hex string of an ObjectId
+     */
+    static String idOf(Document document) {
+        return document.get(ID) instanceof ObjectId id ? id.toHexString() : String.valueOf(document.get(ID));
+    }
+
+    /**
+     * Reads the version of a wishlist document, which is missing on the ones not written since it was introduced
+     */
+    static long versionOf(Document document) {
+        return document.get(VERSION) instanceof Number version ? version.longValue() : 0L;
+    }
+
+    /**
+     * Reads the ids of the product DBRefs still stored on a wishlist document
+     */
+    static Set<String> productRefIdsOf(Document document) {
+        Set<String> productIds = new HashSet<>();
+        for (Document item : document.getList(ITEMS, Document.class, List.of())) {
+            if (item.get(PRODUCT) instanceof DBRef ref) {
+                productIds.add(ref.getId().toString());
+            }
+        }
+        return productIds;
+    }
+
+    /**
+     * Copies the items of a wishlist document replacing each product DBRef by the snapshot of the stored product.
+     * A reference to a product that no longer exists keeps only its id.
+     *
+     * @param document is a raw wishlist document
+     * @param products are the raw product documents, indexed by the string form of their _id
+     * @return the items to store in place of the current ones
+     */
+    static List<Document> withProductSnapshots(Document document, Map<String, Document> products) {
+        List<Document> items = new ArrayList<>();
+        for (Document item : document.getList(ITEMS, Document.class, List.of())) {
+            Document copy = new Document(item);
+            if (item.get(PRODUCT) instanceof DBRef ref) {
+                Document snapshot = new Document(products.getOrDefault(ref.getId().toString(), new Document(ID, ref.getId())));
+                snapshot.remove(TYPE_KEY);
+                copy.put(PRODUCT, snapshot);
+            }
+            items.add(copy);
+        }
+        return items;
+    }
+}
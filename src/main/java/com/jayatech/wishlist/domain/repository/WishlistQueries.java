@@ -0,0 +1,221 @@
+package com.jayatech.wishlist.domain.repository;
+
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Field;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Filters and updates issued directly against the wishlists collection.
+ * Item products are matched on the id of their embedded snapshot, which may have been stored
+ * either as a String or as an ObjectId, so both representations are looked up.
+ */
+final class WishlistQueries {
+
+    static final String COLLECTION = "wishlists";
+    static final String ID = "_id";
+    static final String USER_ID = "userId";
+    static final String ITEMS = "wishListItems";
+    static final String PRODUCT = "product";
+    static final String UPDATED_AT = "updatedAt";
+    static final String CREATED_AT = "createdAt";
+    static final String VERSION = "version";
+    static final String ITEM_ID = ITEMS + "." + ID;
+    static final String ITEM_PRODUCT_ID = ITEMS + "." + PRODUCT + "." + ID;
+    static final String ITEM_PRODUCT_REF = ITEMS + "." + PRODUCT + ".$ref";
+    static final List<String> SNAPSHOT_FIELDS = List.of("name", "price", "description");
+    private static final String PRODUCT_ITEM = "item";
+    private static final String SNAPSHOT_PRODUCT_ID = "productId";
+    private static final String STORED_PRODUCT = "storedProduct";
+
+    private WishlistQueries() {
+    }
+
+    static Object toMongoId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    static List<Object> refIds(String id) {
+        return ObjectId.isValid(id) ? List.of(id, new ObjectId(id)) : List.of(id);
+    }
+
+    static Bson byId(String wishlistId) {
+        return Filters.eq(ID, toMongoId(wishlistId));
+    }
+
+    /**
+     * Matches the wishlist of a user, answered by the userId_unique index.
+     */
+    static Bson byUserId(String userId) {
+        return Filters.eq(USER_ID, userId);
+    }
+
+    /**
+     * Matches the wishlist only while the product is not on it and it has room for one more item.
+     */
+    static Bson canPushItem(String wishlistId, String productId, int maxSize) {
+        return Filters.and(byId(wishlistId),
+                Filters.nin(ITEM_PRODUCT_ID, refIds(productId)),
+                Filters.exists(ITEMS + "." + (maxSize - 1), false));
+    }
+
+    /**
+     * Narrows a filter to the wishlist version the client expects, leaving it as is when no version is expected.
+     * A wishlist stored before the version existed is on version 0.
+     */
+    static Bson atVersion(Bson filter, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return filter;
+        }
+        Bson version = expectedVersion == 0 ? Filters.or(Filters.eq(VERSION, 0L), Filters.exists(VERSION, false))
+                : Filters.eq(VERSION, expectedVersion);
+        return Filters.and(filter, version);
+    }
+
+    static Bson itemWithProduct(String productId) {
+        return Projections.elemMatch(ITEMS, Filters.in(PRODUCT + "." + ID, refIds(productId)));
+    }
+
+    /**
+     * Matches the wishlists holding an item whose snapshot of the product differs from the given one.
+     * The product id comes first, so the filter is answered by the wishListItems_product_id index.
+     */
+    static Bson hasStaleSnapshot(String productId, Document snapshot) {
+        List<Bson> changed = SNAPSHOT_FIELDS.stream()
+                .map(field -> Filters.ne(PRODUCT + "." + field, snapshot.get(field)))
+                .toList();
+        return Filters.elemMatch(ITEMS, Filters.and(Filters.in(PRODUCT + "." + ID, refIds(productId)), Filters.or(changed)));
+    }
+
+    /**
+     * Replaces the product snapshot of the items picked by {@link #productItems(String)}
+     */
+    static Bson setSnapshot(Document snapshot) {
+        return Updates.combine(Updates.set(ITEMS + ".$[" + PRODUCT_ITEM + "]." + PRODUCT, snapshot), nextVersion());
+    }
+
+    /**
+     * The array filter of {@link #setSnapshot(Document)}. A product is on a wishlist at most once,
+     * so the item holding it is the stale one of a wishlist matched by {@link #hasStaleSnapshot(String, Document)}.
+     */
+    static List<Bson> productItems(String productId) {
+        return List.of(Filters.in(PRODUCT_ITEM + "." + PRODUCT + "." + ID, refIds(productId)));
+    }
+
+    /**
+     * Groups the distinct product snapshots of the wishlist items and looks each one up in the products collection,
+     * leaving the ids of the products some snapshot differs from. Snapshots of removed products are left out.
+     * Snapshot ids stored as a String are converted, so the lookup is answered by the products _id index.
+     */
+    static List<Bson> staleSnapshotProducts(String productsCollection) {
+        Document snapshot = new Document(ID, "$" + ITEM_PRODUCT_ID);
+        SNAPSHOT_FIELDS.forEach(field -> snapshot.append(field, "$" + ITEMS + "." + PRODUCT + "." + field));
+        List<Document> changed = SNAPSHOT_FIELDS.stream()
+                .map(field -> new Document("$ne", List.of(orNull("$" + ID + "." + field), orNull("$" + STORED_PRODUCT + "." + field))))
+                .toList();
+        return List.of(
+                Aggregates.match(Filters.exists(ITEM_PRODUCT_ID)),
+                Aggregates.unwind("$" + ITEMS),
+                Aggregates.group(snapshot),
+                Aggregates.addFields(new Field<>(SNAPSHOT_PRODUCT_ID, new Document("$convert", new Document("input", "$" + ID + "." + ID)
+                        .append("to", "objectId")
+                        .append("onError", "$" + ID + "." + ID)))),
+                Aggregates.lookup(productsCollection, SNAPSHOT_PRODUCT_ID, ID, STORED_PRODUCT),
+                Aggregates.unwind("$" + STORED_PRODUCT),
+                Aggregates.match(Filters.expr(new Document("$or", changed))),
+                Aggregates.group("$" + STORED_PRODUCT + "." + ID));
+    }
+
+    /**
+     * A missing field and a null one are the same snapshot value, as for the filters of {@link #hasStaleSnapshot(String, Document)}
+     */
+    private static Document orNull(String field) {
+        return new Document("$ifNull", Arrays.asList(field, null));
+    }
+
+    /**
+     * Matches the wishlists still holding items whose product is a DBRef instead of a snapshot
+     */
+    static Bson hasProductRefs() {
+        return Filters.exists(ITEM_PRODUCT_REF);
+    }
+
+    static Bson itemProducts() {
+        return Projections.include(ITEMS + "." + PRODUCT);
+    }
+
+    /**
+     * Leaves the snapshot fields out of the item products, keeping only their id
+     */
+    static Bson withoutProductDetails() {
+        return Projections.exclude(SNAPSHOT_FIELDS.stream().map(field -> ITEMS + "." + PRODUCT + "." + field).toList());
+    }
+
+    static Bson idOnly() {
+        return Projections.include(ID);
+    }
+
+    static Bson versionOnly() {
+        return Projections.include(VERSION);
+    }
+
+    /**
+     * Bumps the version every update of the items is combined with, so it changes whenever the served wishlist does.
+     * A wishlist stored before the version existed starts from 1.
+     */
+    static Bson nextVersion() {
+        return Updates.inc(VERSION, 1L);
+    }
+
+    static Bson hasItem(String wishlistId, String wishListItemId) {
+        return Filters.and(byId(wishlistId), Filters.eq(ITEM_ID, wishListItemId));
+    }
+
+    /**
+     * Appends the item keeping the array in createdAt order, so reads never have to sort it.
+     */
+    static Bson pushItem(Document item, Instant updatedAt) {
+        return Updates.combine(Updates.pushEach(ITEMS, List.of(item), inCreationOrder()),
+                Updates.set(UPDATED_AT, Date.from(updatedAt)), nextVersion());
+    }
+
+    /**
+     * Re-orders the stored items by createdAt without adding any.
+     */
+    static Bson sortItems() {
+        return Updates.combine(Updates.pushEach(ITEMS, Collections.emptyList(), inCreationOrder()), nextVersion());
+    }
+
+    static Bson hasItems() {
+        return Filters.exists(ITEMS + ".1");
+    }
+
+    private static PushOptions inCreationOrder() {
+        return new PushOptions().sortDocument(Sorts.ascending(CREATED_AT));
+    }
+
+    /**
+     * Stores the items of a batch, computed from a read of the wishlist, in place of the current ones.
+     * It is only safe combined with {@link #atVersion(Bson, Long)} on the version that was read.
+     */
+    static Bson setItems(List<Document> items, Instant updatedAt) {
+        return Updates.combine(Updates.set(ITEMS, items), Updates.set(UPDATED_AT, Date.from(updatedAt)), nextVersion());
+    }
+
+    static Bson pullItem(String wishListItemId, Instant updatedAt) {
+        return Updates.combine(Updates.pull(ITEMS, new Document(ID, wishListItemId)),
+                Updates.set(UPDATED_AT, Date.from(updatedAt)), nextVersion());
+    }
+}
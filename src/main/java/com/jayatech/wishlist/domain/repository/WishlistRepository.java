@@ -5,7 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
 
-public interface WishlistRepository extends MongoRepository<Wishlist, String> {
+public interface WishlistRepository extends MongoRepository<Wishlist, String>, WishlistRepositoryCustom {
     Optional<Wishlist> findByUserId(String userId);
 
 }
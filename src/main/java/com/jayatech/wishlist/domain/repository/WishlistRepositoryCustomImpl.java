@@ -0,0 +1,239 @@
+package com.jayatech.wishlist.domain.repository;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.*;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.*;
+
+import static com.jayatech.wishlist.domain.repository.WishlistQueries.*;
+
+public class WishlistRepositoryCustomImpl implements WishlistRepositoryCustom {
+
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
+    private static final int MAX_SNAPSHOT_PASSES = 3;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public WishlistRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<Wishlist> findItemsByProductId(String wishlistId, String productId) {
+        Document projected = mongoTemplate.execute(COLLECTION, collection -> collection.find(byId(wishlistId))
+                .projection(itemWithProduct(productId))
+                .first());
+        return Optional.ofNullable(projected).map(this::read);
+    }
+
+    @Override
+    public Optional<Set<String>> findProductIdsById(String wishlistId) {
+        Document projected = mongoTemplate.execute(COLLECTION, collection -> collection.find(byId(wishlistId))
+                .projection(itemProducts())
+                .first());
+        return Optional.ofNullable(projected).map(WishlistDocuments::productIdsOf);
+    }
+
+    @Override
+    public Optional<Wishlist> findWithProductIdsById(String wishlistId) {
+        Document projected = mongoTemplate.execute(COLLECTION, collection -> collection.find(byId(wishlistId))
+                .projection(withoutProductDetails())
+                .first());
+        return Optional.ofNullable(projected).map(this::read);
+    }
+
+    @Override
+    public Optional<String> findIdByUserId(String userId) {
+        Document projected = mongoTemplate.execute(COLLECTION, collection -> collection.find(byUserId(userId))
+                .projection(idOnly())
+                .first());
+        return Optional.ofNullable(projected).map(WishlistDocuments::idOf);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(String wishlistId) {
+        Document projected = mongoTemplate.execute(COLLECTION, collection -> collection.find(byId(wishlistId))
+                .projection(versionOnly())
+                .first());
+        return Optional.ofNullable(projected).map(WishlistDocuments::versionOf);
+    }
+
+    @Override
+    public Optional<Wishlist> pushItem(String wishlistId, WishListItem item, int maxSize, Long expectedVersion) {
+        Document updated = mongoTemplate.execute(COLLECTION, collection -> collection.findOneAndUpdate(
+                atVersion(canPushItem(wishlistId, item.getProduct().getId(), maxSize), expectedVersion),
+                WishlistQueries.pushItem(WishlistDocuments.toDocument(mongoTemplate.getConverter(), item), item.getCreatedAt()),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
+        return Optional.ofNullable(updated).map(this::read);
+    }
+
+    @Override
+    public Optional<Wishlist> replaceItems(String wishlistId, List<WishListItem> items, long version) {
+        Document updated = mongoTemplate.execute(COLLECTION, collection -> collection.findOneAndUpdate(
+                atVersion(byId(wishlistId), version),
+                setItems(this.toDocuments(items), Instant.now()),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
+        return Optional.ofNullable(updated).map(this::read);
+    }
+
+    @Override
+    public Optional<Wishlist> pullItem(String wishlistId, String wishListItemId, Long expectedVersion) {
+        Document updated = mongoTemplate.execute(COLLECTION, collection -> collection.findOneAndUpdate(
+                atVersion(hasItem(wishlistId, wishListItemId), expectedVersion),
+                WishlistQueries.pullItem(wishListItemId, Instant.now()),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
+        return Optional.ofNullable(updated).map(this::read);
+    }
+
+    @Override
+    public long sortItemsByCreatedAt() {
+        Long modified = mongoTemplate.execute(COLLECTION, collection -> collection.updateMany(
+                hasItems(), sortItems()).getModifiedCount());
+        return modified != null ? modified : 0;
+    }
+
+    @Override
+    public Map<String, Long> updateProductSnapshots(Product product) {
+        Document snapshot = WishlistDocuments.snapshotOf(mongoTemplate.getConverter(), product);
+        Bson stale = hasStaleSnapshot(product.getId(), snapshot);
+        UpdateOptions options = new UpdateOptions().arrayFilters(productItems(product.getId()));
+        Map<String, Long> rewritten = mongoTemplate.execute(COLLECTION, collection -> {
+            Map<String, Long> versions = new HashMap<>();
+            long skipped;
+            int passes = 0;
+            do {
+                skipped = 0;
+                List<Document> batch = new ArrayList<>();
+                try (MongoCursor<Document> cursor = collection.find(stale)
+                        .projection(versionOnly())
+                        .batchSize(MIGRATION_BATCH_SIZE)
+                        .iterator()) {
+                    while (cursor.hasNext()) {
+                        batch.add(cursor.next());
+                        if (batch.size() == MIGRATION_BATCH_SIZE || !cursor.hasNext()) {
+                            BulkWriteResult result = collection.bulkWrite(batch.stream()
+                                            .map(wishlist -> new UpdateOneModel<Document>(
+                                                    atVersion(Filters.and(Filters.eq(ID, wishlist.get(ID)), stale), WishlistDocuments.versionOf(wishlist)),
+                                                    setSnapshot(snapshot), options))
+                                            .toList(),
+                                    new BulkWriteOptions().ordered(false));
+                            versions.putAll(result.getMatchedCount() < batch.size()
+                                    ? rewrittenVersions(collection, batch, stale) : writtenVersions(batch));
+                            skipped += batch.size() - result.getMatchedCount();
+                            batch.clear();
+                        }
+                    }
+                }
+            } while (skipped > 0 && ++passes < MAX_SNAPSHOT_PASSES);
+            return versions;
+        });
+        return rewritten != null ? rewritten : Map.of();
+    }
+
+    /**
+     * The versions a snapshot rewrite wrote on a batch of wishlists when every update of the batch matched
+     */
+    private static Map<String, Long> writtenVersions(List<Document> batch) {
+        Map<String, Long> versions = new HashMap<>();
+        batch.forEach(wishlist -> versions.put(WishlistDocuments.idOf(wishlist), WishlistDocuments.versionOf(wishlist) + 1));
+        return versions;
+    }
+
+    /**
+     * Re-reads a batch of wishlists some snapshot updates did not match, because they changed or were removed
+     * since they were read, and keeps the versions of the ones the rewrite wrote
+     */
+    private static Map<String, Long> rewrittenVersions(MongoCollection<Document> collection, List<Document> batch, Bson stale) {
+        Map<String, Long> written = writtenVersions(batch);
+        Map<String, Long> versions = new HashMap<>();
+        collection.find(Filters.and(Filters.in(ID, batch.stream().map(wishlist -> wishlist.get(ID)).toList()), Filters.nor(stale)))
+                .projection(versionOnly())
+                .forEach(wishlist -> {
+                    String wishlistId = WishlistDocuments.idOf(wishlist);
+                    if (written.get(wishlistId) == WishlistDocuments.versionOf(wishlist)) {
+                        versions.put(wishlistId, WishlistDocuments.versionOf(wishlist));
+                    }
+                });
+        return versions;
+    }
+
+    @Override
+    public Set<String> findProductIdsWithStaleSnapshots() {
+        Set<String> productIds = mongoTemplate.execute(COLLECTION, collection -> {
+            Set<String> ids = new HashSet<>();
+            collection.aggregate(staleSnapshotProducts(mongoTemplate.getCollectionName(Product.class)))
+                    .allowDiskUse(true)
+                    .forEach(product -> ids.add(WishlistDocuments.idOf(product)));
+            return ids;
+        });
+        return productIds != null ? productIds : Set.of();
+    }
+
+    @Override
+    public long embedProductSnapshots() {
+        Long embedded = mongoTemplate.execute(COLLECTION, collection -> {
+            long rewritten = 0;
+            long skipped;
+            do {
+                skipped = 0;
+                List<Document> batch = new ArrayList<>();
+                try (MongoCursor<Document> cursor = collection.find(hasProductRefs())
+                        .projection(Projections.include(ITEMS))
+                        .batchSize(MIGRATION_BATCH_SIZE)
+                        .iterator()) {
+                    while (cursor.hasNext()) {
+                        batch.add(cursor.next());
+                        if (batch.size() == MIGRATION_BATCH_SIZE || !cursor.hasNext()) {
+                            BulkWriteResult result = collection.bulkWrite(this.embedProductSnapshots(batch),
+                                    new BulkWriteOptions().ordered(false));
+                            rewritten += result.getModifiedCount();
+                            skipped += batch.size() - result.getMatchedCount();
+                            batch.clear();
+                        }
+                    }
+                }
+            } while (skipped > 0);
+            return rewritten;
+        });
+        return embedded != null ? embedded : 0;
+    }
+
+    /**
+     * Builds the updates replacing the product DBRefs of a batch of wishlists, looking up their products at once.
+     * Each update only matches while the wishlist items are still the ones that were read.
+     */
+    private List<UpdateOneModel<Document>> embedProductSnapshots(List<Document> wishlists) {
+        Set<Object> productIds = new HashSet<>();
+        wishlists.forEach(wishlist -> WishlistDocuments.productRefIdsOf(wishlist)
+                .forEach(productId -> productIds.addAll(refIds(productId))));
+        Map<String, Document> products = new HashMap<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+                .find(Filters.in(ID, productIds))
+                .forEach(product -> products.put(product.get(ID).toString(), product));
+        return wishlists.stream()
+                .map(wishlist -> new UpdateOneModel<Document>(
+                        Filters.and(Filters.eq(ID, wishlist.get(ID)), Filters.eq(ITEMS, wishlist.get(ITEMS))),
+                        Updates.combine(Updates.set(ITEMS, WishlistDocuments.withProductSnapshots(wishlist, products)), nextVersion())))
+                .toList();
+    }
+
+    private List<Document> toDocuments(List<WishListItem> items) {
+        return items.stream().map(item -> WishlistDocuments.toDocument(mongoTemplate.getConverter(), item)).toList();
+    }
+
+    private Wishlist read(Document document) {
+        return WishlistDocuments.read(mongoTemplate.getConverter(), document);
+    }
+}
@@ -2,22 +2,42 @@ package com.jayatech.wishlist.domain.service;
 
 import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
 import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.dto.ProductPage;
 import com.jayatech.wishlist.domain.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.jayatech.wishlist.config.CacheConfig.PRODUCTS_CACHE;
+import static com.jayatech.wishlist.config.MetricsConfig.SERVICE_OPERATION_TIMER;
 
 @Service
 public class ProductService {
 
     public static final String PRODUCT_NOT_FOUND_EXCEPTION_MESSAGE = Product.class.getName() + ".not.found";
+    public static final int PRODUCTS_PAGE_SIZE = 20;
+    public static final int PRODUCTS_MAX_PAGE_SIZE = 100;
 
     private final ProductRepository productRepository;
 
+    private final CacheManager cacheManager;
+
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, CacheManager cacheManager) {
         this.productRepository = productRepository;
+        this.cacheManager = cacheManager;
     }
 
 
@@ -30,16 +50,96 @@ public class ProductService {
         return productRepository.findAll();
     }
 
+    /**
+     * Retrieves a page of products ordered by id, starting after the given cursor.
+     * Each page is a range query on the id index, so deep pages cost the same as the first one.
+     *
+     * @param after is the id of the last product of the previous page, or null for the first page
+     * @param size is the page size, bounded between 1 and PRODUCTS_MAX_PAGE_SIZE
+     * @return the products of the page and the cursor of the next page, which is null on the last page
+     */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public ProductPage findPage(String after, int size) {
+        int pageSize = Math.min(Math.max(size, 1), PRODUCTS_MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(0, pageSize, Sort.by("id"));
+        List<Product> products = Objects.isNull(after) ? productRepository.findAllBy(pageable) :
+                productRepository.findByIdGreaterThan(ObjectId.isValid(after) ? new ObjectId(after) : after, pageable);
+        String next = products.size() == pageSize ? products.get(products.size() - 1).getId() : null;
+        return new ProductPage(products, next);
+    }
+
+    /**
+     * Hands every product to the action while reading them from a database cursor,
+     * so the whole collection is never held in memory
+     *
+     * @param action is called once for each product
+     */
+    public void forEachProduct(Consumer<Product> action) {
+        try (Stream<Product> products = productRepository.streamAllBy()) {
+            products.forEach(action);
+        }
+    }
+
 
     /**
-     * Retrieves a Product by the ProductId
+     * Retrieves a Product by the ProductId, served from the products cache when present
      *
      * @param id is the product identifier
      * @return a Product related to the id
      * @throws ResourceNotFoundException when the Product is not found.
      */
+    @Cacheable(cacheNames = PRODUCTS_CACHE)
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
     public Product findById(String id) {
         return productRepository.findById(id).orElseThrow(() ->
                 new ResourceNotFoundException(PRODUCT_NOT_FOUND_EXCEPTION_MESSAGE));
     }
+
+    /**
+     * Retrieves the Products related to a set of ProductIds.
+     * Cached products are served from memory and the remaining ones are fetched with a single query and cached.
+     *
+     * @param ids are the product identifiers
+     * @return the Products found, indexed by their id. Unknown ids are left out.
+     */
+    public Map<String, Product> findAllById(Collection<String> ids) {
+        Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        Map<String, Product> products = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String id : ids) {
+            Product cached = Objects.nonNull(cache) ? cache.get(id, Product.class) : null;
+            if (Objects.nonNull(cached)) {
+                products.put(id, cached);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            productRepository.findAllById(missingIds).forEach(product -> {
+                products.put(product.getId(), product);
+                if (Objects.nonNull(cache)) {
+                    cache.put(product.getId(), product);
+                }
+            });
+        }
+        return products;
+    }
+
+    /**
+     * Invalidates the cached Product, to be called whenever the product changes in the database
+     *
+     * @param id is the product identifier
+     */
+    @CacheEvict(cacheNames = PRODUCTS_CACHE)
+    public void evict(String id) {
+        // the annotation removes the entry
+    }
+
+    /**
+     * Invalidates every cached Product
+     */
+    @CacheEvict(cacheNames = PRODUCTS_CACHE, allEntries = true)
+    public void evictAll() {
+        // the annotation clears the cache
+    }
 }
@@ -0,0 +1,116 @@
+package com.jayatech.wishlist.domain.service;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.repository.JobLeaseRepository;
+import com.jayatech.wishlist.domain.repository.WishlistRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static com.jayatech.wishlist.config.CacheConfig.WISHLISTS_CACHE;
+import static com.jayatech.wishlist.config.MetricsConfig.PRODUCT_SNAPSHOTS_COUNTER;
+
+/**
+ * Keeps the product snapshots embedded in the wishlist items up to date with the products collection.
+ * With the cache invalidation enabled, a changed product is propagated as its change stream event arrives,
+ * and the sweep is only a safety net run once per safety-net-delay. Otherwise the sweep polls once per
+ * propagation-delay. Either way it runs on one instance, the one taking its lease, and finds the changed
+ * products with a single aggregation over the wishlists, so only the items holding a different snapshot
+ * of them are rewritten in place.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wishlist.product-snapshot", name = "propagation-enabled", havingValue = "true", matchIfMissing = true)
+public class ProductSnapshotPropagator {
+
+    static final String SWEEP_JOB = "productSnapshotSweep";
+
+    private final ProductService productService;
+
+    private final WishlistRepository wishlistRepository;
+
+    private final CacheManager cacheManager;
+
+    private final JobLeaseRepository jobLeaseRepository;
+
+    private final Duration sweepPeriod;
+
+    private final Counter updatedWishlists;
+
+    @Autowired
+    public ProductSnapshotPropagator(ProductService productService, WishlistRepository wishlistRepository,
+                                     CacheManager cacheManager, JobLeaseRepository jobLeaseRepository, MeterRegistry meterRegistry,
+                                     @Value("${wishlist.cache.invalidation.enabled:false}") boolean invalidationEnabled,
+                                     @Value("${wishlist.product-snapshot.propagation-delay:PT5M}") Duration propagationDelay,
+                                     @Value("${wishlist.product-snapshot.safety-net-delay:PT6H}") Duration safetyNetDelay) {
+        this.productService = productService;
+        this.wishlistRepository = wishlistRepository;
+        this.cacheManager = cacheManager;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.sweepPeriod = invalidationEnabled ? safetyNetDelay : propagationDelay;
+        this.updatedWishlists = Counter.builder(PRODUCT_SNAPSHOTS_COUNTER)
+                .description("Wishlists whose product snapshots were rewritten after a product change")
+                .baseUnit("wishlists")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Propagates the changed products when this instance takes the lease of the sweep
+     *
+     * @return the number of wishlists whose items were rewritten
+     */
+    @Scheduled(initialDelayString = "${wishlist.product-snapshot.propagation-delay:PT5M}",
+            fixedDelayString = "${wishlist.product-snapshot.propagation-delay:PT5M}")
+    public long sweep() {
+        return jobLeaseRepository.tryAcquire(SWEEP_JOB, sweepPeriod) ? this.propagateChanged() : 0;
+    }
+
+    /**
+     * Propagates the products some wishlist holds a stale snapshot of, reading them with a single query
+     *
+     * @return the number of wishlists whose items were rewritten
+     */
+    public long propagateChanged() {
+        Set<String> productIds = wishlistRepository.findProductIdsWithStaleSnapshots();
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        //The cached products may be the stale ones, so they are read again from the database.
+        productIds.forEach(productService::evict);
+        long rewritten = productService.findAllById(productIds).values().stream()
+                .mapToLong(this::propagate)
+                .sum();
+        log.info("Rewrote the product snapshots of {} wishlists for {} changed products", rewritten, productIds.size());
+        return rewritten;
+    }
+
+    /**
+     * Rewrites the snapshots of a product that differ from it.
+     * When any wishlist changes, the cached product and the rewritten wishlists are invalidated
+     * by the version they were written on.
+     *
+     * @param product is the stored product
+     * @return the number of wishlists whose items were rewritten
+     */
+    public long propagate(Product product) {
+        Map<String, Long> rewritten = wishlistRepository.updateProductSnapshots(product);
+        if (!rewritten.isEmpty()) {
+            productService.evict(product.getId());
+            Cache cache = cacheManager.getCache(WISHLISTS_CACHE);
+            rewritten.forEach((wishlistId, version) -> VersionedWishlistCache.invalidate(cache, wishlistId, version));
+            updatedWishlists.increment(rewritten.size());
+        }
+        return rewritten.size();
+    }
+}
@@ -0,0 +1,126 @@
+package com.jayatech.wishlist.domain.service;
+
+import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.dto.ProductPage;
+import com.jayatech.wishlist.domain.repository.ReactiveProductRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+
+import static com.jayatech.wishlist.config.CacheConfig.PRODUCTS_CACHE;
+import static com.jayatech.wishlist.domain.service.ProductService.*;
+
+/**
+ * The non-blocking counterpart of {@link ProductService}, sharing its products cache.
+ * The cache lives in memory, so reading it does not block.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProductService {
+
+    public static final int PRODUCTS_LOOKUP_BATCH = 10;
+
+    private final ReactiveProductRepository productRepository;
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public ReactiveProductService(ReactiveProductRepository productRepository, CacheManager cacheManager) {
+        this.productRepository = productRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Retrieves a page of products ordered by id, starting after the given cursor
+     *
+     * @param after is the id of the last product of the previous page, or null for the first page
+     * @param size is the page size, bounded between 1 and PRODUCTS_MAX_PAGE_SIZE
+     * @return the products of the page and the cursor of the next page, which is null on the last page
+     */
+    public Mono<ProductPage> findPage(String after, int size) {
+        int pageSize = Math.min(Math.max(size, 1), PRODUCTS_MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(0, pageSize, Sort.by("id"));
+        Flux<Product> products = Objects.isNull(after) ? productRepository.findAllBy(pageable) :
+                productRepository.findByIdGreaterThan(ObjectId.isValid(after) ? new ObjectId(after) : after, pageable);
+        return products.collectList().map(page ->
+                new ProductPage(page, page.size() == pageSize ? page.get(page.size() - 1).getId() : null));
+    }
+
+    /**
+     * Retrieves every product as it is read from the database cursor
+     *
+     * @return all products
+     */
+    public Flux<Product> findAll() {
+        return productRepository.findAll();
+    }
+
+    /**
+     * Retrieves a Product by the ProductId, served from the products cache when present
+     *
+     * @param id is the product identifier
+     * @return a Product related to the id
+     * @throws ResourceNotFoundException when the Product is not found.
+     */
+    public Mono<Product> findById(String id) {
+        return Mono.defer(() -> {
+            Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+            Product cached = Objects.nonNull(cache) ? cache.get(id, Product.class) : null;
+            if (Objects.nonNull(cached)) {
+                return Mono.just(cached);
+            }
+            return productRepository.findById(id)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(PRODUCT_NOT_FOUND_EXCEPTION_MESSAGE)))
+                    .doOnNext(product -> this.cache(cache, product));
+        });
+    }
+
+    /**
+     * Retrieves the Products related to a set of ProductIds.
+     * Cached products are served from memory and the remaining ones are fetched in batches of
+     * PRODUCTS_LOOKUP_BATCH ids that run concurrently, so a large wishlist costs one round trip of latency.
+     *
+     * @param ids are the product identifiers
+     * @return the Products found, indexed by their id. Unknown ids are left out.
+     */
+    public Mono<Map<String, Product>> findAllById(Collection<String> ids) {
+        return Mono.defer(() -> {
+            Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+            Map<String, Product> products = new HashMap<>();
+            List<String> missingIds = new ArrayList<>();
+            for (String id : ids) {
+                Product cached = Objects.nonNull(cache) ? cache.get(id, Product.class) : null;
+                if (Objects.nonNull(cached)) {
+                    products.put(id, cached);
+                } else {
+                    missingIds.add(id);
+                }
+            }
+            if (missingIds.isEmpty()) {
+                return Mono.just(products);
+            }
+            return Flux.fromIterable(missingIds)
+                    .buffer(PRODUCTS_LOOKUP_BATCH)
+                    .flatMap(productRepository::findAllById)
+                    .doOnNext(product -> this.cache(cache, product))
+                    .collect(() -> products, (found, product) -> found.put(product.getId(), product));
+        });
+    }
+
+    private void cache(Cache cache, Product product) {
+        if (Objects.nonNull(cache)) {
+            cache.put(product.getId(), product);
+        }
+    }
+}
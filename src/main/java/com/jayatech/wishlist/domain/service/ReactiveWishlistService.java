@@ -0,0 +1,435 @@
+package com.jayatech.wishlist.domain.service;
+
+import com.jayatech.wishlist.domain.exception.*;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResult;
+import com.jayatech.wishlist.domain.model.dto.WishlistView;
+import com.jayatech.wishlist.domain.repository.ReactiveWishlistRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Instant;
+import java.util.*;
+
+import static com.jayatech.wishlist.config.CacheConfig.WISHLISTS_CACHE;
+import static com.jayatech.wishlist.config.CacheConfig.WISHLIST_IDS_CACHE;
+import static com.jayatech.wishlist.config.MetricsConfig.*;
+import static com.jayatech.wishlist.domain.service.WishlistService.*;
+
+/**
+ * The non-blocking counterpart of {@link WishlistService}. It issues the same single round trip
+ * filters and updates, shares the wishlists and products caches and raises the same exceptions,
+ * signalled as errors of the returned publishers.
+ * The caches are read on subscription, not when the publishers are built.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveWishlistService {
+
+    private final ReactiveWishlistRepository wishlistRepository;
+
+    private final ReactiveProductService productService;
+
+    private final CacheManager cacheManager;
+
+    private final DistributionSummary wishlistSize;
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ReactiveWishlistService(ReactiveWishlistRepository wishlistRepository, ReactiveProductService productService,
+                                   CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.wishlistRepository = wishlistRepository;
+        this.productService = productService;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+        this.wishlistSize = DistributionSummary.builder(WISHLIST_SIZE_SUMMARY)
+                .description("Number of items of the wishlists read or changed")
+                .baseUnit("items")
+                .serviceLevelObjectives(1, 5, 10, 15, WISHLIST_MAX_SIZE)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Saves a new Wishlist based on the userId with a single insert
+     *
+     * @param userId is the identifier of the user the wishlist belongs to
+     * @return a created Wishlist
+     * @throws WishlistFoundException when there is a Wishlist saved with the same userId
+     * @throws InternalErrorException when an internal error occurs
+     */
+    public Mono<Wishlist> saveWishList(String userId) {
+        return wishlistRepository.insert(Wishlist.builder()
+                        .userId(userId)
+                        .createdAt(Instant.now())
+                        .wishListItems(new ArrayList<>())
+                        .build())
+                .onErrorMap(DuplicateKeyException.class, e -> new WishlistFoundException(WISHLIST_FOUND_EXCEPTION_MESSAGE))
+                .onErrorMap(e -> !(e instanceof WishlistFoundException), e -> this.internalError("Failed to create wishlist", e))
+                .doOnNext(wishlist -> {
+                    this.cacheWishlist(wishlist);
+                    this.cacheWishlistId(wishlist);
+                });
+    }
+
+    /**
+     * Retrieves a Wishlist by the wishlistId, served from the wishlists cache when present
+     *
+     * @param wishlistId is the wishlist identifier
+     * @return a Wishlist related to the id
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     */
+    public Mono<Wishlist> findById(String wishlistId) {
+        return Mono.defer(() -> {
+            Wishlist cached = this.cachedWishlist(wishlistId);
+            if (Objects.nonNull(cached)) {
+                wishlistSize.record(cached.getWishListItems().size());
+                return Mono.just(cached);
+            }
+            return wishlistRepository.findById(wishlistId)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)))
+                    .doOnNext(wishlist -> {
+                        //A mutation may have cached a newer version while this one was loaded, which the versioned write keeps.
+                        this.cacheWishlist(wishlist);
+                        wishlistSize.record(wishlist.getWishListItems().size());
+                    });
+        });
+    }
+
+    /**
+     * Retrieves a Wishlist for a view, reading the ids view with a projection leaving out the product details
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param view is how much of the wishlist is served
+     * @return a Wishlist related to the id, holding at least what the view serves
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     * @see WishlistService#findById(String, WishlistView)
+     */
+    public Mono<Wishlist> findById(String wishlistId, WishlistView view) {
+        if (view != WishlistView.IDS) {
+            return this.findById(wishlistId);
+        }
+        return Mono.defer(() -> {
+            Wishlist cached = this.cachedWishlist(wishlistId);
+            Mono<Wishlist> wishlist = Objects.nonNull(cached) ? Mono.just(cached) : wishlistRepository.findWithProductIdsById(wishlistId)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)));
+            return wishlist.doOnNext(found -> wishlistSize.record(found.getWishListItems().size()));
+        });
+    }
+
+    /**
+     * Retrieves the identifier of the Wishlist of a user, from the wishlistIds cache when present
+     * or else with a query on the userId index projecting only the identifier
+     *
+     * @param userId is the identifier of the user the wishlist belongs to
+     * @return the wishlist identifier
+     * @throws ResourceNotFoundException when the user has no Wishlist.
+     */
+    public Mono<String> findIdByUserId(String userId) {
+        return Mono.defer(() -> {
+            Cache cache = cacheManager.getCache(WISHLIST_IDS_CACHE);
+            String cached = Objects.nonNull(cache) ? cache.get(userId, String.class) : null;
+            if (Objects.nonNull(cached)) {
+                return Mono.just(cached);
+            }
+            return wishlistRepository.findIdByUserId(userId)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)))
+                    .doOnNext(wishlistId -> {
+                        if (Objects.nonNull(cache)) {
+                            cache.put(userId, wishlistId);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Retrieves the version of a Wishlist without loading its items,
+     * from the wishlists cache when present or else with a query projecting only the version
+     *
+     * @param wishlistId is the wishlist identifier
+     * @return the version the Wishlist is served with
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     */
+    public Mono<Long> findVersion(String wishlistId) {
+        return Mono.defer(() -> {
+            Long cached = VersionedWishlistCache.version(this.wishlistCache(), wishlistId);
+            if (Objects.nonNull(cached)) {
+                return Mono.just(cached);
+            }
+            return wishlistRepository.findVersionById(wishlistId)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)));
+        });
+    }
+
+    /**
+     * Includes a new WishlistItem on a Wishlist on whatever version it is
+     *
+     * @see #updateWishList(String, String, Long)
+     */
+    public Mono<Wishlist> updateWishList(String wishlistId, String productId) {
+        return this.updateWishList(wishlistId, productId, null);
+    }
+
+    /**
+     * Includes a new WishlistItem on a Wishlist with a single conditional update.
+     * An update rejected by a concurrent change that no longer applies is tried again
+     * with the same bounded, jittered backoff as {@link WishlistService}.
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param productId is the product identifier that will be included from the wishlist
+     * @param expectedVersion is the version the wishlist must be on, from an If-Match, or null for any
+     * @return a Wishlist related to the id
+     * @throws ResourceNotFoundException when the Wishlist or the Product is not found
+     * @throws RegisteredProductException when the product is on the wishlist
+     * @throws WishlistMaxSizeException when insert more products than the wishlist size
+     * @throws PreconditionFailedException when the wishlist is not on the expected version
+     * @throws ConflictException when the concurrent updates outlast the attempts
+     * @throws InternalErrorException when an internal error occurs
+     */
+    public Mono<Wishlist> updateWishList(String wishlistId, String productId, Long expectedVersion) {
+        return productService.findById(productId).flatMap(product -> {
+                    WishListItem item = WishListItem.builder()
+                            .id(UUID.randomUUID().toString())
+                            .createdAt(Instant.now())
+                            .product(product)
+                            .build();
+                    return wishlistRepository.pushItem(wishlistId, item, WISHLIST_MAX_SIZE, expectedVersion)
+                            .onErrorMap(e -> this.internalError("Failed to update wishlist", e))
+                            .switchIfEmpty(Mono.defer(() -> this.rejectedItem(wishlistId, productId, expectedVersion)))
+                            .retryWhen(this.concurrentUpdateRetry());
+                })
+                .doOnNext(wishlist -> {
+                    this.cacheWishlist(wishlist);
+                    wishlistSize.record(wishlist.getWishListItems().size());
+                });
+    }
+
+    /**
+     * Finds out why a conditional inclusion did not match any wishlist
+     *
+     * @return an error with the exception raised by the first failing validation,
+     * or a concurrent update when the wishlist changed between the update and this check
+     */
+    private Mono<Wishlist> rejectedItem(String wishlistId, String productId, Long expectedVersion) {
+        return wishlistRepository.findById(wishlistId)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)))
+                .flatMap(wishlist -> {
+                    this.cacheWishlist(wishlist);
+                    this.checkVersion(wishlist.getVersion(), expectedVersion);
+                    WishlistItems.validateProduct(wishlist, productId);
+                    this.countConflict("concurrent");
+                    return Mono.error(new ConflictException(WISHLIST_CONCURRENT_UPDATE_EXCEPTION_MESSAGE));
+                });
+    }
+
+    /**
+     * Adds and removes many items of a Wishlist with a single conditional update,
+     * tried again on a concurrent change the same way as {@link WishlistService}
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param batch is the product identifiers to add and the wishlist item identifiers to remove
+     * @param expectedVersion is the version the wishlist must be on, from an If-Match, or null for any
+     * @return the Wishlist after the batch with the outcome of each entry
+     * @throws ResourceNotFoundException when the Wishlist is not found
+     * @throws WishlistMaxSizeException when the batch adds or removes more items than a wishlist holds
+     * @throws PreconditionFailedException when the wishlist is not on the expected version
+     * @throws ConflictException when the concurrent updates outlast the attempts
+     * @throws InternalErrorException when an internal error occurs
+     */
+    public Mono<WishlistBatchResponse> updateWishListItems(String wishlistId, WishlistBatchRequest batch, Long expectedVersion) {
+        return Mono.defer(() -> {
+                    WishlistItems.validateBatch(batch);
+                    return productService.findAllById(new LinkedHashSet<>(WishlistItems.listOf(batch.getAdd())));
+                })
+                .flatMap(products -> Mono.defer(() -> this.applyBatch(wishlistId, batch, products, expectedVersion))
+                        .retryWhen(this.concurrentUpdateRetry()));
+    }
+
+    private Mono<WishlistBatchResponse> applyBatch(String wishlistId, WishlistBatchRequest batch,
+                                                   Map<String, Product> products, Long expectedVersion) {
+        return wishlistRepository.findById(wishlistId)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)))
+                .flatMap(wishlist -> {
+                    this.checkVersion(wishlist.getVersion(), expectedVersion);
+                    long version = Objects.nonNull(wishlist.getVersion()) ? wishlist.getVersion() : 0L;
+                    List<WishlistBatchResult> results = WishlistItems.applyBatch(wishlist, batch, products, Instant.now());
+                    if (results.stream().noneMatch(WishlistBatchResult::isApplied)) {
+                        return Mono.just(new WishlistBatchResponse(wishlist, results));
+                    }
+                    return wishlistRepository.replaceItems(wishlistId, wishlist.getWishListItems(), version)
+                            .onErrorMap(e -> this.internalError("Failed to update wishlist", e))
+                            .switchIfEmpty(Mono.error(() -> {
+                                this.countConflict("concurrent");
+                                return new ConflictException(WISHLIST_CONCURRENT_UPDATE_EXCEPTION_MESSAGE);
+                            }))
+                            .map(updated -> {
+                                this.cacheWishlist(updated);
+                                wishlistSize.record(updated.getWishListItems().size());
+                                return new WishlistBatchResponse(updated, results);
+                            });
+                });
+    }
+
+    /**
+     * Retries an update rejected by a concurrent change with the bounded, jittered backoff of {@link WishlistService}
+     */
+    private Retry concurrentUpdateRetry() {
+        return Retry.backoff(WISHLIST_UPDATE_MAX_ATTEMPTS - 1, WISHLIST_UPDATE_BACKOFF)
+                .jitter(0.5)
+                .filter(ReactiveWishlistService::isConcurrentUpdate)
+                .doBeforeRetry(signal -> meterRegistry.counter(UPDATE_RETRIES_COUNTER).increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private static boolean isConcurrentUpdate(Throwable e) {
+        return e instanceof ConflictException;
+    }
+
+    /**
+     * Removes the product from a wishlist on whatever version it is
+     *
+     * @see #removeWishListProduct(String, String, Long)
+     */
+    public Mono<Void> removeWishListProduct(String wishlistId, String wishListItemId) {
+        return this.removeWishListProduct(wishlistId, wishListItemId, null);
+    }
+
+    /**
+     * Removes the product from a wishlist with a single update
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param wishListItemId is the wishlist item identifier that will be removed from the wishlist
+     * @param expectedVersion is the version the wishlist must be on, from an If-Match, or null for any
+     * @return completes once the item is removed
+     * @throws ResourceNotFoundException when the wishlist or the wishlist item is not found
+     * @throws PreconditionFailedException when the wishlist is not on the expected version
+     * @throws InternalErrorException when an internal error occurs
+     */
+    public Mono<Void> removeWishListProduct(String wishlistId, String wishListItemId, Long expectedVersion) {
+        return wishlistRepository.pullItem(wishlistId, wishListItemId, expectedVersion)
+                .doOnError(e -> this.evictWishlist(wishlistId))
+                .onErrorMap(e -> this.internalError("Failed to remove wishlist product", e))
+                .doOnNext(this::cacheWishlist)
+                .hasElement()
+                .flatMap(removed -> removed ? Mono.<Void>empty() : this.rejectedRemoval(wishlistId, expectedVersion));
+    }
+
+    /**
+     * Finds out why a removal did not match any wishlist
+     */
+    private Mono<Void> rejectedRemoval(String wishlistId, Long expectedVersion) {
+        if (Objects.nonNull(expectedVersion)) {
+            return wishlistRepository.findVersionById(wishlistId)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)))
+                    .flatMap(version -> {
+                        this.checkVersion(version, expectedVersion);
+                        return Mono.error(new ResourceNotFoundException(WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE));
+                    });
+        }
+        return wishlistRepository.existsById(wishlistId)
+                .flatMap(exists -> Mono.error(new ResourceNotFoundException(exists ?
+                        WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE : WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)));
+    }
+
+    private void checkVersion(Long version, Long expectedVersion) {
+        long current = Objects.nonNull(version) ? version : 0L;
+        if (Objects.nonNull(expectedVersion) && current != expectedVersion) {
+            this.countConflict("version");
+            throw new PreconditionFailedException(WISHLIST_VERSION_MISMATCH_EXCEPTION_MESSAGE);
+        }
+    }
+
+    private void countConflict(String cause) {
+        meterRegistry.counter(UPDATE_CONFLICTS_COUNTER, "cause", cause).increment();
+    }
+
+    /**
+     * Checks if the product is on the Wishlist by asking the database for the matching item only
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param productId is the product item identifier that will be verified
+     * @return a ProductCheck response with the product if the product is on the Wishlist
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     */
+    public Mono<ProductCheckResponse> checkProduct(String wishlistId, String productId) {
+        return Mono.defer(() -> {
+            Wishlist cached = this.cachedWishlist(wishlistId);
+            if (Objects.nonNull(cached)) {
+                return Mono.just(WishlistItems.checkProduct(cached, productId));
+            }
+            return wishlistRepository.findItemsByProductId(wishlistId, productId)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)))
+                    .map(wishlist -> {
+                        if (Objects.isNull(wishlist.getWishListItems())) {
+                            wishlist.setWishListItems(new ArrayList<>());
+                        }
+                        return WishlistItems.checkProduct(wishlist, productId);
+                    });
+        });
+    }
+
+    /**
+     * Checks which of the products are on the Wishlist with a single projected query
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param productIds are the product identifiers that will be verified
+     * @return whether each product is on the Wishlist, indexed by the product identifier
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     */
+    public Mono<Map<String, Boolean>> checkProducts(String wishlistId, Collection<String> productIds) {
+        return Mono.defer(() -> {
+            Wishlist cached = this.cachedWishlist(wishlistId);
+            Mono<Set<String>> wishlistProductIds = Objects.nonNull(cached) ? Mono.just(WishlistItems.productIdsOf(List.of(cached))) :
+                    wishlistRepository.findProductIdsById(wishlistId)
+                            .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)));
+            return wishlistProductIds.map(ids -> WishlistItems.check(ids, productIds));
+        });
+    }
+
+    private InternalErrorException internalError(String message, Throwable e) {
+        log.error(message, e);
+        return new InternalErrorException(e.getMessage(), e.getCause());
+    }
+
+    private Cache wishlistCache() {
+        return cacheManager.getCache(WISHLISTS_CACHE);
+    }
+
+    private Wishlist cachedWishlist(String wishlistId) {
+        return VersionedWishlistCache.get(this.wishlistCache(), wishlistId);
+    }
+
+    private void cacheWishlist(Wishlist wishlist) {
+        VersionedWishlistCache.put(this.wishlistCache(), wishlist);
+    }
+
+    private void cacheWishlistId(Wishlist wishlist) {
+        Cache cache = cacheManager.getCache(WISHLIST_IDS_CACHE);
+        if (Objects.nonNull(cache)) {
+            cache.put(wishlist.getUserId(), wishlist.getId());
+        }
+    }
+
+    private void evictWishlist(String wishlistId) {
+        Cache cache = this.wishlistCache();
+        if (Objects.nonNull(cache)) {
+            cache.evict(wishlistId);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.jayatech.wishlist.domain.service;
+
+import com.jayatech.wishlist.domain.model.Wishlist;
+import org.springframework.cache.Cache;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads and writes of the wishlists cache, shared by the blocking and the reactive services.
+ * Every write is conditioned on the wishlist version, so a state loaded or written before another one
+ * can never replace it, whatever order the concurrent requests reach the cache in.
+ * Cached wishlists are copies, so callers cannot change the cached entries.
+ * <p>
+ * A write seen on the change stream leaves the version it wrote in place of the entry, which reads
+ * as a miss and keeps any older state loaded meanwhile from being cached after the invalidation.
+ */
+public final class VersionedWishlistCache {
+
+    private VersionedWishlistCache() {
+    }
+
+    /**
+     * @param cache is the wishlists cache, null when it is disabled
+     * @param wishlistId is the wishlist identifier
+     * @return a copy of the cached Wishlist or null when it is not cached
+     */
+    static Wishlist get(Cache cache, String wishlistId) {
+        Cache.ValueWrapper cached = Objects.nonNull(cache) ? cache.get(wishlistId) : null;
+        return Objects.nonNull(cached) && cached.get() instanceof Wishlist wishlist ? WishlistItems.copyOf(wishlist) : null;
+    }
+
+    /**
+     * @param cache is the wishlists cache, null when it is disabled
+     * @param wishlistId is the wishlist identifier
+     * @return the version of the cached Wishlist or null when it is not cached
+     */
+    static Long version(Cache cache, String wishlistId) {
+        Cache.ValueWrapper cached = Objects.nonNull(cache) ? cache.get(wishlistId) : null;
+        return Objects.nonNull(cached) && cached.get() instanceof Wishlist wishlist ? versionOf(wishlist) : null;
+    }
+
+    /**
+     * Caches a state of the Wishlist read or written by this instance, unless a newer version is already cached
+     *
+     * @param cache is the wishlists cache, null when it is disabled
+     * @param wishlist is the hydrated wishlist
+     */
+    static void put(Cache cache, Wishlist wishlist) {
+        if (Objects.isNull(cache)) {
+            return;
+        }
+        mapOf(cache).merge(wishlist.getId(), WishlistItems.copyOf(wishlist), (cached, loaded) ->
+                isNewer((Wishlist) loaded, cached) ? loaded : cached);
+    }
+
+    /**
+     * Invalidates the cached Wishlist for a write made on the given version, unless that version
+     * or a newer one is already cached
+     *
+     * @param cache is the wishlists cache, null when it is disabled
+     * @param wishlistId is the wishlist identifier
+     * @param version is the version written, Long.MAX_VALUE for a removed wishlist
+     */
+    public static void invalidate(Cache cache, String wishlistId, long version) {
+        if (Objects.isNull(cache)) {
+            return;
+        }
+        mapOf(cache).merge(wishlistId, new Invalidated(version), (cached, invalidated) ->
+                cached instanceof Wishlist wishlist && versionOf(wishlist) >= version ? cached : invalidated);
+    }
+
+    private static boolean isNewer(Wishlist loaded, Object cached) {
+        if (cached instanceof Invalidated invalidated) {
+            return versionOf(loaded) >= invalidated.version();
+        }
+        return versionOf(loaded) > versionOf((Wishlist) cached);
+    }
+
+    private static long versionOf(Wishlist wishlist) {
+        return Objects.nonNull(wishlist.getVersion()) ? wishlist.getVersion() : 0L;
+    }
+
+    private record Invalidated(long version) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Object, Object> mapOf(Cache cache) {
+        Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return (ConcurrentMap<Object, Object>) caffeine.asMap();
+        }
+        if (nativeCache instanceof ConcurrentMap<?, ?> map) {
+            return (ConcurrentMap<Object, Object>) map;
+        }
+        throw new IllegalStateException("The " + cache.getName() + " cache cannot be written conditionally");
+    }
+}
@@ -0,0 +1,135 @@
+package com.jayatech.wishlist.domain.service;
+
+import com.jayatech.wishlist.domain.exception.RegisteredProductException;
+import com.jayatech.wishlist.domain.exception.WishlistMaxSizeException;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResult;
+
+import java.time.Instant;
+import java.util.*;
+
+import static com.jayatech.wishlist.domain.model.dto.WishlistBatchResult.*;
+import static com.jayatech.wishlist.domain.service.ProductService.PRODUCT_NOT_FOUND_EXCEPTION_MESSAGE;
+import static com.jayatech.wishlist.domain.service.WishlistService.*;
+
+/**
+ * Rules over the items of a loaded Wishlist, shared by the blocking and the reactive services.
+ * They only look at the given wishlist, so they never reach the database.
+ */
+final class WishlistItems {
+
+    private WishlistItems() {
+    }
+
+    static Wishlist copyOf(Wishlist wishlist) {
+        return new Wishlist(wishlist.getId(), wishlist.getUserId(), wishlist.getCreatedAt(), wishlist.getUpdatedAt(),
+                new ArrayList<>(wishlist.getWishListItems()), wishlist.getVersion());
+    }
+
+    static Set<String> productIdsOf(Collection<Wishlist> wishlists) {
+        Set<String> productIds = new HashSet<>();
+        for (Wishlist wishlist : wishlists) {
+            for (WishListItem item : wishlist.getWishListItems()) {
+                if (Objects.nonNull(item.getProduct())) {
+                    productIds.add(item.getProduct().getId());
+                }
+            }
+        }
+        return productIds;
+    }
+
+    static Map<String, Boolean> check(Set<String> wishlistProductIds, Collection<String> productIds) {
+        Map<String, Boolean> checked = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            checked.put(productId, wishlistProductIds.contains(productId));
+        }
+        return checked;
+    }
+
+    static ProductCheckResponse checkProduct(Wishlist wishlist, String productId) {
+        Product product = productOf(wishlist, productId);
+        if (Objects.nonNull(product.getId())) {
+            return new ProductCheckResponse(product);
+        }
+        return new ProductCheckResponse();
+    }
+
+    static Product productOf(Wishlist wishlist, String productId) {
+        Product product = new Product();
+        if (Objects.nonNull(wishlist) && Objects.nonNull(wishlist.getWishListItems())) {
+            for (WishListItem item : wishlist.getWishListItems()) {
+                if (Objects.nonNull(item.getProduct()) && item.getProduct().getId().equals(productId)) {
+                    product = item.getProduct();
+                }
+            }
+        }
+        return product;
+    }
+
+    static void validateProduct(Wishlist wishlist, String productId) {
+        Product hasProduct = productOf(wishlist, productId);
+        if (hasProduct.getId() != null) {
+            throw new RegisteredProductException(REGISTERED_PRODUCT_EXCEPTION_MESSAGE);
+        }
+        if (wishlist.getWishListItems().size() >= WISHLIST_MAX_SIZE) {
+            throw new WishlistMaxSizeException(WISHLIST_MAX_SIZE_EXCEPTION_MESSAGE);
+        }
+    }
+
+    /**
+     * Rejects a batch that adds or removes more items than a wishlist holds, before any product is looked up
+     */
+    static void validateBatch(WishlistBatchRequest batch) {
+        if (listOf(batch.getAdd()).size() > WISHLIST_MAX_SIZE || listOf(batch.getRemove()).size() > WISHLIST_MAX_SIZE) {
+            throw new WishlistMaxSizeException(WISHLIST_MAX_SIZE_EXCEPTION_MESSAGE);
+        }
+    }
+
+    /**
+     * Applies a batch to a loaded Wishlist, removals first and then additions in the given order.
+     * Each entry is checked with the rules of the single item mutations against the items as the previous
+     * entries left them, so a product added twice or past the maximum size is rejected on its own.
+     *
+     * @param wishlist is the loaded wishlist, whose items are replaced by the changed ones
+     * @param batch is the products to add and the wishlist items to remove
+     * @param products are the Products found for the added ids, indexed by their id
+     * @param now is the creation time of the added items, which keeps them after the stored ones
+     * @return the outcome of each entry, removals first
+     */
+    static List<WishlistBatchResult> applyBatch(Wishlist wishlist, WishlistBatchRequest batch, Map<String, Product> products, Instant now) {
+        List<WishListItem> items = new ArrayList<>(listOf(wishlist.getWishListItems()));
+        wishlist.setWishListItems(items);
+        List<WishlistBatchResult> results = new ArrayList<>();
+        for (String itemId : listOf(batch.getRemove())) {
+            boolean removed = items.removeIf(item -> Objects.equals(item.getId(), itemId));
+            results.add(new WishlistBatchResult(REMOVE, itemId, removed ? itemId : null,
+                    removed ? REMOVED : WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE));
+        }
+        for (String productId : listOf(batch.getAdd())) {
+            Product product = products.get(productId);
+            String status = ADDED;
+            if (Objects.isNull(product)) {
+                status = PRODUCT_NOT_FOUND_EXCEPTION_MESSAGE;
+            } else if (Objects.nonNull(productOf(wishlist, productId).getId())) {
+                status = REGISTERED_PRODUCT_EXCEPTION_MESSAGE;
+            } else if (items.size() >= WISHLIST_MAX_SIZE) {
+                status = WISHLIST_MAX_SIZE_EXCEPTION_MESSAGE;
+            }
+            String itemId = null;
+            if (ADDED.equals(status)) {
+                itemId = UUID.randomUUID().toString();
+                items.add(WishListItem.builder().id(itemId).createdAt(now).product(product).build());
+            }
+            results.add(new WishlistBatchResult(ADD, productId, itemId, status));
+        }
+        return results;
+    }
+
+    static <T> List<T> listOf(List<T> values) {
+        return Objects.nonNull(values) ? values : List.of();
+    }
+}
@@ -5,13 +5,29 @@ import com.jayatech.wishlist.domain.model.Product;
 import com.jayatech.wishlist.domain.model.WishListItem;
 import com.jayatech.wishlist.domain.model.Wishlist;
 import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResult;
+import com.jayatech.wishlist.domain.model.dto.WishlistView;
 import com.jayatech.wishlist.domain.repository.WishlistRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.jayatech.wishlist.config.CacheConfig.WISHLISTS_CACHE;
+import static com.jayatech.wishlist.config.CacheConfig.WISHLIST_IDS_CACHE;
+import static com.jayatech.wishlist.config.MetricsConfig.*;
 
 @Service
 @Slf4j
@@ -22,36 +38,59 @@ public class WishlistService {
     public static final String REGISTERED_PRODUCT_EXCEPTION_MESSAGE = Product.class.getName() + ".registered";
     public static final String WISHLIST_MAX_SIZE_EXCEPTION_MESSAGE = Wishlist.class.getName() + ".maximum.size";
     public static final String WISHLIST_FOUND_EXCEPTION_MESSAGE = Wishlist.class.getName() + ".found";
+    public static final String WISHLIST_CONCURRENT_UPDATE_EXCEPTION_MESSAGE = Wishlist.class.getName() + ".concurrent.update";
+    public static final String WISHLIST_VERSION_MISMATCH_EXCEPTION_MESSAGE = Wishlist.class.getName() + ".version.mismatch";
     public static final int WISHLIST_MAX_SIZE = 20;
+    public static final int WISHLIST_UPDATE_MAX_ATTEMPTS = 3;
+    public static final Duration WISHLIST_UPDATE_BACKOFF = Duration.ofMillis(10);
 
     private final WishlistRepository wishlistRepository;
 
     private final ProductService productService;
 
+    private final CacheManager cacheManager;
+
+    private final DistributionSummary wishlistSize;
+
+    private final MeterRegistry meterRegistry;
+
     @Autowired
-    public WishlistService(WishlistRepository wishListRepository, ProductService productService) {
+    public WishlistService(WishlistRepository wishListRepository, ProductService productService,
+                           CacheManager cacheManager, MeterRegistry meterRegistry) {
         this.wishlistRepository = wishListRepository;
         this.productService = productService;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+        this.wishlistSize = DistributionSummary.builder(WISHLIST_SIZE_SUMMARY)
+                .description("Number of items of the wishlists read or changed")
+                .baseUnit("items")
+                .serviceLevelObjectives(1, 5, 10, 15, WISHLIST_MAX_SIZE)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
     }
 
     /**
-     * Saves a new Wishlist based on the userId
+     * Saves a new Wishlist based on the userId with a single insert.
+     * The unique index on userId rejects a second wishlist for the same user, even under concurrent requests.
      *
      * @param userId is the identifier of the user the wishlist belongs to
      * @return a created Wishlist
      * @throws WishlistFoundException when there is a Wishlist saved with the same userId
      * @throws InternalErrorException when an internal error occurs
      */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
     public Wishlist saveWishList(String userId) {
-        if (wishlistRepository.findByUserId(userId).isPresent()) {
-            throw new WishlistFoundException(WISHLIST_FOUND_EXCEPTION_MESSAGE);
-        }
         try {
-            return wishlistRepository.save(Wishlist.builder()
+            Wishlist wishlist = wishlistRepository.insert(Wishlist.builder()
                     .userId(userId)
                     .createdAt(Instant.now())
                     .wishListItems(new ArrayList<>())
                     .build());
+            this.cacheWishlist(wishlist);
+            this.cacheWishlistId(wishlist);
+            return wishlist;
+        } catch (DuplicateKeyException e) {
+            throw new WishlistFoundException(WISHLIST_FOUND_EXCEPTION_MESSAGE);
         } catch (Exception e) {
             log.error("Failed to create wishlist", e);
             throw new InternalErrorException(e.getMessage(), e.getCause());
@@ -59,72 +98,405 @@ public class WishlistService {
     }
 
     /**
-     * Retrieves a Wishlist by the wishlistId
+     * Retrieves a Wishlist by the wishlistId, served from the wishlists cache when present
      *
      * @param wishlistId is the wishlist identifier
      * @return a Wishlist related to the id
      * @throws ResourceNotFoundException when the Wishlist is not found.
      */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
     public Wishlist findById(String wishlistId) {
+        Wishlist cached = this.cachedWishlist(wishlistId);
+        if (Objects.nonNull(cached)) {
+            wishlistSize.record(cached.getWishListItems().size());
+            return cached;
+        }
+        //The items are stored in createdAt order with their product snapshots, so they are returned as read.
         Wishlist wishlist = wishlistRepository.findById(wishlistId).orElseThrow(() ->
                 new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE));
 
-        //The next line sorts each item on the wishlist item based on the createdAt attribute.
-        wishlist.getWishListItems().sort(Comparator.comparing(WishListItem::getCreatedAt));
+        //A mutation may have cached a newer version while this one was loaded, which the versioned write keeps.
+        this.cacheWishlist(wishlist);
+        wishlistSize.record(wishlist.getWishListItems().size());
         return wishlist;
     }
 
     /**
-     * Includes a new WishlistItem on a Wishlist
+     * Retrieves a Wishlist for a view. The ids view is served from the wishlists cache when present
+     * or else read with a projection leaving out the product details, which is not cached as it is partial.
      *
-     * @param wishlist is the user's wishlist
+     * @param wishlistId is the wishlist identifier
+     * @param view is how much of the wishlist is served
+     * @return a Wishlist related to the id, holding at least what the view serves
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public Wishlist findById(String wishlistId, WishlistView view) {
+        if (view != WishlistView.IDS) {
+            return this.findById(wishlistId);
+        }
+        Wishlist cached = this.cachedWishlist(wishlistId);
+        Wishlist wishlist = Objects.nonNull(cached) ? cached : wishlistRepository.findWithProductIdsById(wishlistId).orElseThrow(() ->
+                new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE));
+        wishlistSize.record(wishlist.getWishListItems().size());
+        return wishlist;
+    }
+
+    /**
+     * Retrieves the identifier of the Wishlist of a user, from the wishlistIds cache when present
+     * or else with a query on the userId index projecting only the identifier
+     *
+     * @param userId is the identifier of the user the wishlist belongs to
+     * @return the wishlist identifier
+     * @throws ResourceNotFoundException when the user has no Wishlist.
+     */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public String findIdByUserId(String userId) {
+        Cache cache = cacheManager.getCache(WISHLIST_IDS_CACHE);
+        String cached = Objects.nonNull(cache) ? cache.get(userId, String.class) : null;
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        String wishlistId = wishlistRepository.findIdByUserId(userId).orElseThrow(() ->
+                new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE));
+        if (Objects.nonNull(cache)) {
+            cache.put(userId, wishlistId);
+        }
+        return wishlistId;
+    }
+
+    /**
+     * Retrieves the version of a Wishlist without loading its items,
+     * from the wishlists cache when present or else with a query projecting only the version
+     *
+     * @param wishlistId is the wishlist identifier
+     * @return the version the Wishlist is served with
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public long findVersion(String wishlistId) {
+        Long cached = VersionedWishlistCache.version(this.wishlistCache(), wishlistId);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        return wishlistRepository.findVersionById(wishlistId).orElseThrow(() ->
+                new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE));
+    }
+
+    /**
+     * Retrieves several Wishlists by their wishlistIds
+     *
+     * @param wishlistIds are the wishlist identifiers
+     * @return the Wishlists found, read with a single query
+     */
+    public List<Wishlist> findAllById(Collection<String> wishlistIds) {
+        return wishlistRepository.findAllById(wishlistIds);
+    }
+
+    /**
+     * Includes a new WishlistItem on a Wishlist on whatever version it is
+     *
+     * @see #updateWishList(String, String, Long)
+     */
+    public Wishlist updateWishList(String wishlistId, String productId) {
+        return this.updateWishList(wishlistId, productId, null);
+    }
+
+    /**
+     * Includes a new WishlistItem on a Wishlist with a single conditional update,
+     * so concurrent inclusions on the same wishlist cannot overwrite each other.
+     * An update rejected by a concurrent change that no longer applies, such as an item removed
+     * from a full wishlist meanwhile, is tried again a few times after a jittered backoff.
+     *
+     * @param wishlistId is the wishlist identifier
      * @param productId is the product identifier that will be included from the wishlist
+     * @param expectedVersion is the version the wishlist must be on, from an If-Match, or null for any
      * @return a Wishlist related to the id
+     * @throws ResourceNotFoundException when the Wishlist or the Product is not found
+     * @throws RegisteredProductException when the product is on the wishlist
+     * @throws WishlistMaxSizeException when insert more products than the wishlist size
+     * @throws PreconditionFailedException when the wishlist is not on the expected version
+     * @throws ConflictException when the concurrent updates outlast the attempts
      * @throws InternalErrorException when an internal error occurs
      */
-    public Wishlist updateWishList(Wishlist wishlist, String productId) {
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public Wishlist updateWishList(String wishlistId, String productId, Long expectedVersion) {
         Product product = productService.findById(productId);
-
-        this.validateProduct(wishlist, product.getId());
-        wishlist.getWishListItems().add(WishListItem.builder()
+        WishListItem item = WishListItem.builder()
                 .id(UUID.randomUUID().toString())
                 .createdAt(Instant.now())
                 .product(product)
-                .build());
-        wishlist.setUpdatedAt(Instant.now());
-        try {
-            return wishlistRepository.save(wishlist);
-        } catch (Exception e) {
-            log.error("Failed to update wishlist", e);
-            throw new InternalErrorException(e.getMessage(), e.getCause());
+                .build();
+        for (int attempt = 1; ; attempt++) {
+            Optional<Wishlist> updated;
+            try {
+                updated = wishlistRepository.pushItem(wishlistId, item, WISHLIST_MAX_SIZE, expectedVersion);
+            } catch (Exception e) {
+                log.error("Failed to update wishlist", e);
+                throw new InternalErrorException(e.getMessage(), e.getCause());
+            }
+            if (updated.isPresent()) {
+                Wishlist wishlist = updated.get();
+                this.cacheWishlist(wishlist);
+                wishlistSize.record(wishlist.getWishListItems().size());
+                return wishlist;
+            }
+            ConflictException conflict = this.rejectedItem(wishlistId, productId, expectedVersion);
+            if (attempt == WISHLIST_UPDATE_MAX_ATTEMPTS) {
+                log.warn("Gave up including {} on wishlist {} after {} concurrent updates", productId, wishlistId, attempt);
+                throw conflict;
+            }
+            this.backOff(attempt, conflict);
         }
     }
 
     /**
-     * Removes the product from a wishlist
+     * Finds out why a conditional inclusion did not match any wishlist.
+     * It is only reached on the rejection path, so successful inclusions stay a single round trip.
      *
-     * @param wishlist is the user's wishlist
-     * @param wishListItemId is the wishlist item identifier that will be removed from the wishlist
-     * @throws ResourceNotFoundException when a wishlist item is not found
+     * @param wishlistId is the wishlist identifier
+     * @param productId is the product identifier that was not included
+     * @param expectedVersion is the version the wishlist had to be on, or null for any
+     * @return the exception raised when the wishlist changed between the update and this check
+     * @throws ResourceNotFoundException when the Wishlist is not found
+     * @throws PreconditionFailedException when the wishlist is not on the expected version
+     * @throws RegisteredProductException when the product is on the wishlist
+     * @throws WishlistMaxSizeException when the wishlist is full
+     */
+    private ConflictException rejectedItem(String wishlistId, String productId, Long expectedVersion) {
+        Wishlist wishlist = wishlistRepository.findById(wishlistId).orElseThrow(() ->
+                new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE));
+        this.cacheWishlist(wishlist);
+        this.checkVersion(wishlist.getVersion(), expectedVersion);
+        this.validateProduct(wishlist, productId);
+        this.countConflict("concurrent");
+        return new ConflictException(WISHLIST_CONCURRENT_UPDATE_EXCEPTION_MESSAGE);
+    }
+
+    /**
+     * Adds and removes many items of a Wishlist with a single conditional update.
+     * The products to add are looked up at once and the batch is applied to the wishlist as stored,
+     * with the rules of the single item mutations reported for each entry instead of failing the request.
+     * The resulting items are written only while the wishlist is still on the version that was read,
+     * and a batch beaten by a concurrent change is applied again to the new state after a jittered backoff.
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param batch is the product identifiers to add and the wishlist item identifiers to remove
+     * @param expectedVersion is the version the wishlist must be on, from an If-Match, or null for any
+     * @return the Wishlist after the batch with the outcome of each entry
+     * @throws ResourceNotFoundException when the Wishlist is not found
+     * @throws WishlistMaxSizeException when the batch adds or removes more items than a wishlist holds
+     * @throws PreconditionFailedException when the wishlist is not on the expected version
+     * @throws ConflictException when the concurrent updates outlast the attempts
      * @throws InternalErrorException when an internal error occurs
      */
-    public void removeWishListProduct(Wishlist wishlist, String wishListItemId) {
-        if (Objects.nonNull(wishlist.getWishListItems())) {
-            List<WishListItem> updatedItems = new ArrayList<>(wishlist.getWishListItems());
-            boolean hasProduct = updatedItems.removeIf(item ->
-                    item.getId().equals(wishListItemId));
-            if (!hasProduct) {
-                throw new ResourceNotFoundException(WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE);
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public WishlistBatchResponse updateWishListItems(String wishlistId, WishlistBatchRequest batch, Long expectedVersion) {
+        WishlistItems.validateBatch(batch);
+        Map<String, Product> products = productService.findAllById(new LinkedHashSet<>(WishlistItems.listOf(batch.getAdd())));
+        for (int attempt = 1; ; attempt++) {
+            Wishlist wishlist = wishlistRepository.findById(wishlistId).orElseThrow(() ->
+                    new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE));
+            this.checkVersion(wishlist.getVersion(), expectedVersion);
+            long version = Objects.nonNull(wishlist.getVersion()) ? wishlist.getVersion() : 0L;
+            List<WishlistBatchResult> results = WishlistItems.applyBatch(wishlist, batch, products, Instant.now());
+            if (results.stream().noneMatch(WishlistBatchResult::isApplied)) {
+                return new WishlistBatchResponse(wishlist, results);
+            }
+            Optional<Wishlist> updated;
+            try {
+                updated = wishlistRepository.replaceItems(wishlistId, wishlist.getWishListItems(), version);
+            } catch (Exception e) {
+                log.error("Failed to update wishlist", e);
+                throw new InternalErrorException(e.getMessage(), e.getCause());
             }
-            wishlist.setWishListItems(updatedItems);
-            wishlist.setUpdatedAt(Instant.now());
+            if (updated.isPresent()) {
+                this.cacheWishlist(updated.get());
+                wishlistSize.record(updated.get().getWishListItems().size());
+                return new WishlistBatchResponse(updated.get(), results);
+            }
+            this.countConflict("concurrent");
+            ConflictException conflict = new ConflictException(WISHLIST_CONCURRENT_UPDATE_EXCEPTION_MESSAGE);
+            if (attempt == WISHLIST_UPDATE_MAX_ATTEMPTS) {
+                log.warn("Gave up applying a batch on wishlist {} after {} concurrent updates", wishlistId, attempt);
+                throw conflict;
+            }
+            this.backOff(attempt, conflict);
         }
+    }
+
+    /**
+     * Waits before the next attempt of a conflicting update, for a random time between half and all of
+     * a backoff that doubles on each attempt, so the updates that conflicted do not meet again
+     *
+     * @param attempt is the number of the attempt that conflicted
+     * @param conflict is thrown when the wait is interrupted
+     */
+    private void backOff(int attempt, ConflictException conflict) {
+        meterRegistry.counter(UPDATE_RETRIES_COUNTER).increment();
+        long backoff = WISHLIST_UPDATE_BACKOFF.toMillis() << (attempt - 1);
         try {
-            wishlistRepository.save(wishlist);
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    /**
+     * Removes the product from a wishlist on whatever version it is
+     *
+     * @see #removeWishListProduct(String, String, Long)
+     */
+    public void removeWishListProduct(String wishlistId, String wishListItemId) {
+        this.removeWishListProduct(wishlistId, wishListItemId, null);
+    }
+
+    /**
+     * Removes the product from a wishlist with a single update
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param wishListItemId is the wishlist item identifier that will be removed from the wishlist
+     * @param expectedVersion is the version the wishlist must be on, from an If-Match, or null for any
+     * @throws ResourceNotFoundException when the wishlist or the wishlist item is not found
+     * @throws PreconditionFailedException when the wishlist is not on the expected version
+     * @throws InternalErrorException when an internal error occurs
+     */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public void removeWishListProduct(String wishlistId, String wishListItemId, Long expectedVersion) {
+        Optional<Wishlist> removed;
+        try {
+            removed = wishlistRepository.pullItem(wishlistId, wishListItemId, expectedVersion);
         } catch (Exception e) {
+            this.evictWishlist(wishlistId);
             log.error("Failed to remove wishlist product", e);
             throw new InternalErrorException(e.getMessage(), e.getCause());
         }
+        removed.ifPresent(this::cacheWishlist);
+        if (removed.isEmpty()) {
+            if (Objects.nonNull(expectedVersion)) {
+                this.checkVersion(wishlistRepository.findVersionById(wishlistId).orElseThrow(() ->
+                        new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE)), expectedVersion);
+            } else if (!wishlistRepository.existsById(wishlistId)) {
+                throw new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE);
+            }
+            throw new ResourceNotFoundException(WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE);
+        }
+    }
+
+    /**
+     * Rejects a mutation conditioned on a version the wishlist is no longer on
+     *
+     * @param version is the stored version, null on a wishlist never written since the version exists
+     * @param expectedVersion is the version the client expects, or null for any
+     * @throws PreconditionFailedException when the versions differ
+     */
+    private void checkVersion(Long version, Long expectedVersion) {
+        long current = Objects.nonNull(version) ? version : 0L;
+        if (Objects.nonNull(expectedVersion) && current != expectedVersion) {
+            this.countConflict("version");
+            throw new PreconditionFailedException(WISHLIST_VERSION_MISMATCH_EXCEPTION_MESSAGE);
+        }
+    }
+
+    /**
+     * Counts the mutations rejected by a concurrent change, by whether an If-Match version
+     * no longer matched or another update got in first
+     */
+    private void countConflict(String cause) {
+        meterRegistry.counter(UPDATE_CONFLICTS_COUNTER, "cause", cause).increment();
+    }
+
+    /**
+     * Checks if the product is on the Wishlist by asking the database for the matching item only,
+     * so the other items of the wishlist are not loaded
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param productId is the product item identifier that will be verified
+     * @return a ProductCheck response with the product if the product is on the Wishlist
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public ProductCheckResponse checkProduct(String wishlistId, String productId) {
+        Wishlist cached = this.cachedWishlist(wishlistId);
+        if (Objects.nonNull(cached)) {
+            return this.checkProduct(cached, productId);
+        }
+        Wishlist wishlist = wishlistRepository.findItemsByProductId(wishlistId, productId).orElseThrow(() ->
+                new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE));
+        if (Objects.isNull(wishlist.getWishListItems())) {
+            wishlist.setWishListItems(new ArrayList<>());
+        }
+        return this.checkProduct(wishlist, productId);
+    }
+
+    /**
+     * Checks which of the products are on the Wishlist with a single projected query
+     *
+     * @param wishlistId is the wishlist identifier
+     * @param productIds are the product identifiers that will be verified
+     * @return whether each product is on the Wishlist, indexed by the product identifier
+     * @throws ResourceNotFoundException when the Wishlist is not found.
+     */
+    @Timed(value = SERVICE_OPERATION_TIMER, histogram = true)
+    public Map<String, Boolean> checkProducts(String wishlistId, Collection<String> productIds) {
+        Wishlist cached = this.cachedWishlist(wishlistId);
+        Set<String> wishlistProductIds = Objects.nonNull(cached) ? WishlistItems.productIdsOf(List.of(cached)) :
+                wishlistRepository.findProductIdsById(wishlistId).orElseThrow(() ->
+                        new ResourceNotFoundException(WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE));
+        return WishlistItems.check(wishlistProductIds, productIds);
+    }
+
+    /**
+     * Retrieves the wishlists cache, which is not registered when it is disabled
+     *
+     * @return the wishlists cache or null when it is disabled
+     */
+    private Cache wishlistCache() {
+        return cacheManager.getCache(WISHLISTS_CACHE);
+    }
+
+    /**
+     * Retrieves a copy of the cached Wishlist, so callers cannot change the cached entry
+     *
+     * @param wishlistId is the wishlist identifier
+     * @return the cached Wishlist or null when it is not cached
+     */
+    private Wishlist cachedWishlist(String wishlistId) {
+        return VersionedWishlistCache.get(this.wishlistCache(), wishlistId);
+    }
+
+    /**
+     * Caches a state of the Wishlist read or written here, unless a newer version is cached
+     *
+     * @param wishlist is the hydrated wishlist
+     */
+    private void cacheWishlist(Wishlist wishlist) {
+        VersionedWishlistCache.put(this.wishlistCache(), wishlist);
+    }
+
+    /**
+     * Keeps the wishlist id of the user, which never changes once the wishlist is created
+     *
+     * @param wishlist is the created wishlist
+     */
+    private void cacheWishlistId(Wishlist wishlist) {
+        Cache cache = cacheManager.getCache(WISHLIST_IDS_CACHE);
+        if (Objects.nonNull(cache)) {
+            cache.put(wishlist.getUserId(), wishlist.getId());
+        }
+    }
+
+    /**
+     * Invalidates the cached Wishlist
+     *
+     * @param wishlistId is the wishlist identifier
+     */
+    private void evictWishlist(String wishlistId) {
+        Cache cache = this.wishlistCache();
+        if (Objects.nonNull(cache)) {
+            cache.evict(wishlistId);
+        }
     }
 
     /**
@@ -135,11 +507,7 @@ public class WishlistService {
      * @return a ProductCheck response with the product if the product is on the Wishlist
      */
     public ProductCheckResponse checkProduct(Wishlist wishlist, String productId) {
-        Product product = this.hasProductInWishlist(wishlist, productId);
-        if (Objects.nonNull(product.getId())) {
-            return new ProductCheckResponse(product);
-        }
-        return new ProductCheckResponse();
+        return WishlistItems.checkProduct(wishlist, productId);
     }
 
     /**
@@ -150,15 +518,7 @@ public class WishlistService {
      * @return a product with its values if there is a product in a wishlist as the productId
      */
     public Product hasProductInWishlist(Wishlist wishlist, String productId) {
-        Product product = new Product();
-        if (Objects.nonNull(wishlist) && Objects.nonNull(wishlist.getWishListItems())) {
-            for (WishListItem item : wishlist.getWishListItems()) {
-                if (item.getProduct().getId().equals(productId)) {
-                    product = item.getProduct();
-                }
-            }
-        }
-        return product;
+        return WishlistItems.productOf(wishlist, productId);
     }
 
     /**
@@ -171,12 +531,6 @@ public class WishlistService {
      * @throws WishlistMaxSizeException when insert more products than the wishlist size
      */
     public void validateProduct(Wishlist wishlist, String productId) {
-        Product hasProduct = this.hasProductInWishlist(wishlist, productId);
-        if (hasProduct.getId() != null) {
-            throw new RegisteredProductException(REGISTERED_PRODUCT_EXCEPTION_MESSAGE);
-        }
-        if (wishlist.getWishListItems().size() == WISHLIST_MAX_SIZE) {
-            throw new WishlistMaxSizeException(WISHLIST_MAX_SIZE_EXCEPTION_MESSAGE);
-        }
+        WishlistItems.validateProduct(wishlist, productId);
     }
 }
@@ -3,6 +3,7 @@ package com.jayatech.wishlist.api.controller;
 import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
 import com.jayatech.wishlist.domain.model.Product;
 import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.ProductPage;
 import com.jayatech.wishlist.domain.service.ProductService;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
@@ -55,10 +56,29 @@ class ProductsControllerIntegrationTest {
                 .andDo(MockMvcResultHandlers.print()).andExpect(status().isOk());
     }
 
+    @Test
+    @SneakyThrows
+    void getProducts_pages() {
+        mvc.perform(MockMvcRequestBuilders.get("/products").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.[*]", hasSize(20)))
+                .andExpect(header().string("Link", startsWith("</products?after=")));
+    }
+
+    @Test
+    @SneakyThrows
+    void streamProducts() {
+        mvc.perform(MockMvcRequestBuilders.get("/products/stream"))
+                .andExpect(request().asyncStarted())
+                .andDo(result -> mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                        .andExpect(status().isOk())
+                        .andExpect(MockMvcResultMatchers.jsonPath("$.[*]", hasSize(greaterThanOrEqualTo(25)))));
+    }
+
     @Test
     @SneakyThrows
     void getMockedProducts() {
-        doReturn(Arrays.asList(
+        doReturn(new ProductPage(Arrays.asList(
                 Product.builder()
                         .id("100")
                         .name("product test")
@@ -70,8 +90,8 @@ class ProductsControllerIntegrationTest {
                         .name("product test 2")
                         .price(BigDecimal.valueOf(20.60))
                         .description("product test 2")
-                        .build()))
-                .when(productService).findAll();
+                        .build()), null))
+                .when(productService).findPage(null, ProductService.PRODUCTS_PAGE_SIZE);
         mvc.perform(MockMvcRequestBuilders.get("/products"))
                 .andExpect(status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.[*]", hasSize(2)))
@@ -88,7 +108,8 @@ class ProductsControllerIntegrationTest {
     @Test
     @SneakyThrows
     void getProducts_empty() {
-        doReturn(Collections.emptyList()).when(productService).findAll();
+        doReturn(new ProductPage(Collections.emptyList(), null))
+                .when(productService).findPage(null, ProductService.PRODUCTS_PAGE_SIZE);
         mvc.perform(MockMvcRequestBuilders.get("/products"))
                 .andExpect(status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.[*]", hasSize(0)));
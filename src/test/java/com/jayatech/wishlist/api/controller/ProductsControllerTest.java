@@ -1,7 +1,9 @@
 package com.jayatech.wishlist.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
 import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.dto.ProductPage;
 import com.jayatech.wishlist.domain.service.ProductService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,12 +11,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,18 +37,41 @@ class ProductsControllerTest {
     @Mock
     private ProductService productService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @AfterEach
     public void afterEach() {
         verifyNoMoreInteractions(productService);
     }
 
+    @Test
+    @DisplayName("Should answer 304 while the product matches the ETag")
+    void getProductById_notModified() {
+        String id = "1";
+        Product product = Product.builder().id(id).name("product").price(BigDecimal.TEN).description("description").build();
+        when(productService.findById(id)).thenReturn(product);
+        String eTag = productController.getProductById(id, null).getHeaders().getETag();
+
+        ResponseEntity<Product> notModified = productController.getProductById(id, eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertEquals(eTag, notModified.getHeaders().getETag());
+        assertNull(notModified.getBody());
+
+        product.setPrice(BigDecimal.ONE);
+        ResponseEntity<Product> changed = productController.getProductById(id, eTag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(eTag, changed.getHeaders().getETag());
+        verify(productService, times(3)).findById(id);
+    }
+
     @Test
     @DisplayName("Should get product by Id")
     void getProductById() {
         String id = "1";
         Product product = new Product();
         when(productService.findById(id)).thenReturn(product);
-        ResponseEntity<Product> responseEntity = productController.getProductById(id);
+        ResponseEntity<Product> responseEntity = productController.getProductById(id, null);
         verify(productService).findById(id);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertSame(product, responseEntity.getBody());
@@ -50,18 +82,51 @@ class ProductsControllerTest {
     void getProductById_ProductNotFound() {
         String id = "2";
         when(productService.findById(id)).thenThrow(ResourceNotFoundException.class);
-        assertThrows(ResourceNotFoundException.class, () -> productController.getProductById(id));
+        assertThrows(ResourceNotFoundException.class, () -> productController.getProductById(id, null));
         verify(productService).findById(id);
     }
 
     @Test
-    @DisplayName("Should get all products")
+    @DisplayName("Should get the last page of products")
     void getListProduct() {
         List<Product> products = new ArrayList<>();
-        when(productService.findAll()).thenReturn(products);
-        ResponseEntity<List<Product>> responseEntity = productController.getAllProducts();
-        verify(productService).findAll();
+        when(productService.findPage(null, 20)).thenReturn(new ProductPage(products, null));
+        ResponseEntity<List<Product>> responseEntity = productController.getAllProducts(null, 20);
+        verify(productService).findPage(null, 20);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertSame(products, responseEntity.getBody());
+        assertFalse(responseEntity.getHeaders().containsKey(HttpHeaders.LINK));
+    }
+
+    @Test
+    @DisplayName("Should link the next page of products")
+    void getListProduct_nextPage() {
+        List<Product> products = List.of(Product.builder().id("100").build(), Product.builder().id("101").build());
+        when(productService.findPage("99", 2)).thenReturn(new ProductPage(products, "101"));
+        ResponseEntity<List<Product>> responseEntity = productController.getAllProducts("99", 2);
+        verify(productService).findPage("99", 2);
+        assertSame(products, responseEntity.getBody());
+        assertEquals("</products?after=101&size=2>; rel=\"next\"",
+                responseEntity.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    @DisplayName("Should stream all products as a json array")
+    @SuppressWarnings("unchecked")
+    void streamAllProducts() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Product> action = invocation.getArgument(0);
+            action.accept(Product.builder().id("100").name("product test").price(BigDecimal.ONE).build());
+            action.accept(Product.builder().id("101").name("product test 2").price(BigDecimal.TEN).build());
+            return null;
+        }).when(productService).forEachProduct(any(Consumer.class));
+        ResponseEntity<StreamingResponseBody> responseEntity = productController.streamAllProducts();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertNotNull(responseEntity.getBody());
+        responseEntity.getBody().writeTo(output);
+        verify(productService).forEachProduct(any(Consumer.class));
+        assertEquals("[{\"id\":\"100\",\"name\":\"product test\",\"price\":1,\"description\":null},"
+                        + "{\"id\":\"101\",\"name\":\"product test 2\",\"price\":10,\"description\":null}]",
+                output.toString(StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,126 @@
+package com.jayatech.wishlist.api.controller;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.UserDTO;
+import com.jayatech.wishlist.domain.service.WishlistService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReactiveWishlistControllerIntegrationTest {
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0")
+            .withExposedPorts(27017);
+
+    @DynamicPropertySource
+    static void mongoDbProperties(DynamicPropertyRegistry registry) {
+        mongoDBContainer.start();
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private List<Product> products(int size) {
+        return webTestClient.get().uri("/products?size=" + size)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<Product>>() {
+                })
+                .returnResult().getResponseBody();
+    }
+
+    private Wishlist createWishlist() {
+        return webTestClient.post().uri("/wishlist")
+                .bodyValue(new UserDTO(UUID.randomUUID().toString()))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Wishlist.class)
+                .returnResult().getResponseBody();
+    }
+
+    @Test
+    void getProducts_pages() {
+        webTestClient.get().uri("/products?size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, containsString("rel=\"next\""))
+                .expectBody().jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    void createWishlist_duplicated() {
+        Wishlist wishlist = createWishlist();
+        webTestClient.post().uri("/wishlist")
+                .bodyValue(new UserDTO(wishlist.getUserId()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo(WishlistService.WISHLIST_FOUND_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    void incrementAndRemoveWishlistItem() {
+        Product product = Objects.requireNonNull(products(1)).get(0);
+        Wishlist wishlist = createWishlist();
+
+        Wishlist updated = webTestClient.post().uri("/wishlist/{wishlistId}/items/{productId}", wishlist.getId(), product.getId())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Wishlist.class)
+                .returnResult().getResponseBody();
+        assertNotNull(updated);
+        assertEquals(product.getName(), updated.getWishListItems().get(0).getProduct().getName());
+
+        webTestClient.post().uri("/wishlist/{wishlistId}/items/{productId}", wishlist.getId(), product.getId())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo(WishlistService.REGISTERED_PRODUCT_EXCEPTION_MESSAGE);
+
+        webTestClient.get().uri("/wishlist/{wishlistId}/check/{productId}", wishlist.getId(), product.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.hasProductInWishlist").isEqualTo(true);
+
+        String itemId = updated.getWishListItems().get(0).getId();
+        webTestClient.delete().uri("/wishlist/{wishlistId}/items/{itemId}", wishlist.getId(), itemId)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NO_CONTENT);
+        webTestClient.delete().uri("/wishlist/{wishlistId}/items/{itemId}", wishlist.getId(), itemId)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo(WishlistService.WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE);
+
+        webTestClient.get().uri("/wishlist/{wishlistId}/check?productIds={productId}", wishlist.getId(), product.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$." + product.getId()).isEqualTo(false);
+    }
+
+    @Test
+    void getWishlist_notFound() {
+        webTestClient.get().uri("/wishlist/{wishlistId}", "unknown")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo(WishlistService.WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE);
+    }
+}
@@ -3,9 +3,12 @@ package com.jayatech.wishlist.api.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jayatech.wishlist.domain.exception.ConflictException;
 import com.jayatech.wishlist.domain.exception.InternalErrorException;
+import com.jayatech.wishlist.domain.exception.PreconditionFailedException;
 import com.jayatech.wishlist.domain.exception.RegisteredProductException;
 import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
+import com.jayatech.wishlist.domain.exception.UnknownViewException;
 import com.jayatech.wishlist.domain.exception.WishlistMaxSizeException;
 import com.jayatech.wishlist.domain.model.Product;
 import com.jayatech.wishlist.domain.model.WishListItem;
@@ -17,9 +20,11 @@ import lombok.SneakyThrows;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -40,6 +45,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class WishlistControllerIntegrationTest {
 
@@ -83,6 +89,17 @@ class WishlistControllerIntegrationTest {
                 (asJsonString(request.getUserId()))).andExpect(status().isBadRequest());
     }
 
+    @Test
+    @SneakyThrows
+    void prometheus_countsExceptions() {
+        doThrow(new ResourceNotFoundException(WishlistService.WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE))
+                .when(wishlistService).findById("unknownWishlistId");
+        mvc.perform(get(URL_WISHLIST + "/unknownWishlistId")).andExpect(status().isNotFound());
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("wishlist_exceptions_total{exception=\"ResourceNotFoundException\"")));
+    }
+
     @Test
     @SneakyThrows
     void postWishlistException_internalError(){
@@ -140,12 +157,113 @@ class WishlistControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @SneakyThrows
+    void getWishlist_notModified() {
+        String created = mvc.perform(post(URL_WISHLIST).contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(UserDTO.builder().userId("conditionalGetUser").build())))
+                .andReturn().getResponse().getContentAsString();
+        String wishlistId = new ObjectMapper().readTree(created).path("id").asText();
+        String eTag = mvc.perform(get(URL_WISHLIST + "/{wishlistId}", wishlistId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        clearInvocations(wishlistService);
+        mvc.perform(get(URL_WISHLIST + "/{wishlistId}", wishlistId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        verify(wishlistService, never()).findById(wishlistId);
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteProduct_versionMismatch() {
+        String created = mvc.perform(post(URL_WISHLIST).contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(UserDTO.builder().userId("conditionalDeleteUser").build())))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getContentAsString();
+        String wishlistId = new ObjectMapper().readTree(created).path("id").asText();
+        mvc.perform(delete(URL_WISHLIST + "/{wishlistId}/items/{itemId}", wishlistId, "itemId").header(HttpHeaders.IF_MATCH, "\"7\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error", is(PreconditionFailedException.EXCEPTION_MESSAGE)));
+        mvc.perform(delete(URL_WISHLIST + "/{wishlistId}/items/{itemId}", wishlistId, "itemId").header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SneakyThrows
+    void updateWishlistItems() {
+        String created = mvc.perform(post(URL_WISHLIST).contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(UserDTO.builder().userId("batchUser").build())))
+                .andReturn().getResponse().getContentAsString();
+        String wishlistId = new ObjectMapper().readTree(created).path("id").asText();
+        String products = mvc.perform(get("/products").param("size", "2"))
+                .andReturn().getResponse().getContentAsString();
+        List<String> productIds = new ArrayList<>();
+        new ObjectMapper().readTree(products).forEach(product -> productIds.add(product.path("id").asText()));
+        mvc.perform(patch(URL_WISHLIST + "/{wishlistId}/items", wishlistId).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(Map.of("add", List.of(productIds.get(0), productIds.get(1), productIds.get(0)),
+                                "remove", List.of("unknownItem")))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.wishlist.wishListItems", hasSize(2)))
+                .andExpect(jsonPath("$.results[*].status", contains(WishlistService.WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE,
+                        "added", "added", WishlistService.REGISTERED_PRODUCT_EXCEPTION_MESSAGE)));
+        verify(wishlistService, never()).updateWishList(anyString(), anyString(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void getWishlistViews() {
+        String created = mvc.perform(post(URL_WISHLIST).contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(UserDTO.builder().userId("viewUser").build())))
+                .andReturn().getResponse().getContentAsString();
+        String wishlistId = new ObjectMapper().readTree(created).path("id").asText();
+        String products = mvc.perform(get("/products").param("size", "1"))
+                .andReturn().getResponse().getContentAsString();
+        String productId = new ObjectMapper().readTree(products).path(0).path("id").asText();
+        mvc.perform(post(URL_WISHLIST + "/{wishlistId}/items/{productId}", wishlistId, productId))
+                .andExpect(status().isCreated());
+        mvc.perform(get(URL_WISHLIST + "/{wishlistId}", wishlistId).param("view", "ids"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-ids\""))
+                .andExpect(jsonPath("$.size", is(1)))
+                .andExpect(jsonPath("$.wishListItems[0].product.id", is(productId)))
+                .andExpect(jsonPath("$.wishListItems[0].product.name").doesNotExist());
+        mvc.perform(get(URL_WISHLIST + "/user/{userId}", "viewUser").param("view", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-compact\""))
+                .andExpect(jsonPath("$.wishListItems[0].product.name").exists());
+        mvc.perform(get(URL_WISHLIST + "/{wishlistId}", wishlistId).param("view", "ids").header(HttpHeaders.IF_NONE_MATCH, "\"1-ids\""))
+                .andExpect(status().isNotModified());
+        mvc.perform(get(URL_WISHLIST + "/{wishlistId}", wishlistId).param("view", "tiny"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is(UnknownViewException.EXCEPTION_MESSAGE)));
+    }
+
+    @Test
+    @SneakyThrows
+    void getUserWishlist() {
+        String created = mvc.perform(post(URL_WISHLIST).contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(UserDTO.builder().userId("lookupUser").build())))
+                .andReturn().getResponse().getContentAsString();
+        String wishlistId = new ObjectMapper().readTree(created).path("id").asText();
+        mvc.perform(get(URL_WISHLIST + "/user/{userId}", "lookupUser"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.id", is(wishlistId)))
+                .andExpect(jsonPath("$.userId", is("lookupUser")));
+        mvc.perform(get(URL_WISHLIST + "/user/{userId}", "unknownUser"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @SneakyThrows
     void check_products() {
         String wishlistId = "wishlistId";
-        String userId = "userid1";
-        String wishlistItemId = "wishListItemId";
         String productId = "productId";
         Product product = Product.builder()
                 .id(productId)
@@ -154,17 +272,7 @@ class WishlistControllerIntegrationTest {
                 .description("product test description")
                 .build();
 
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId).userId(userId)
-                .createdAt(instant)
-                .updatedAt(instant)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id(wishlistItemId)
-                        .createdAt(instant)
-                        .product(product).build()))
-                .build();
-        doReturn(wishlist).when(wishlistService).findById(wishlistId);
-        doReturn(new ProductCheckResponse(product)).when(wishlistService).checkProduct(wishlist, product.getId());
+        doReturn(new ProductCheckResponse(product)).when(wishlistService).checkProduct(wishlistId, product.getId());
         mvc.perform(MockMvcRequestBuilders.get(URL_WISHLIST + "/{wishlistId}/check/{productId}", wishlistId, productId))
                 .andExpect(status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.[*]", hasSize(3)))
@@ -181,15 +289,7 @@ class WishlistControllerIntegrationTest {
     void check_products_not_found() {
         String wishlistId = "wishlistId";
         String productId = "productId";
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId("userId")
-                .createdAt(instant)
-                .updatedAt(instant)
-                .wishListItems(Collections.emptyList())
-                .build();
-        doReturn(wishlist).when(wishlistService).findById(wishlistId);
-        doReturn(new ProductCheckResponse()).when(wishlistService).checkProduct(wishlist, productId);
+        doReturn(new ProductCheckResponse()).when(wishlistService).checkProduct(wishlistId, productId);
         mvc.perform(MockMvcRequestBuilders.get(URL_WISHLIST + "/{wishlistId}/check/{productId}", wishlistId, productId))
                 .andExpect(status().isOk()).andExpect(MockMvcResultMatchers.jsonPath("$.[*]", hasSize(3)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.hasProductInWishlist", equalTo(false)))
@@ -197,17 +297,25 @@ class WishlistControllerIntegrationTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.product", equalTo(null)));
     }
 
+    @Test
+    @SneakyThrows
+    void check_several_products() {
+        String wishlistId = "wishlistId";
+        Map<String, Boolean> checked = new LinkedHashMap<>();
+        checked.put("productId1", true);
+        checked.put("productId2", false);
+        doReturn(checked).when(wishlistService).checkProducts(wishlistId, Set.of("productId1", "productId2"));
+        mvc.perform(MockMvcRequestBuilders.get(URL_WISHLIST + "/{wishlistId}/check", wishlistId)
+                        .param("productIds", "productId1", "productId2"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.productId1", equalTo(true)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.productId2", equalTo(false)));
+    }
+
     @Test
     void incrementWishlist() throws Exception {
         String wishlistId = "wishlistId";
         String productId = "productId";
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId("userId")
-                .createdAt(instant)
-                .updatedAt(instant)
-                .wishListItems(Collections.emptyList())
-                .build();
 
         Wishlist updatedWishlist = Wishlist.builder()
                 .id(wishlistId)
@@ -224,8 +332,7 @@ class WishlistControllerIntegrationTest {
                         .build()))
                 .build();
 
-        doReturn(wishlist).when(wishlistService).findById(wishlistId);
-        doReturn(updatedWishlist).when(wishlistService).updateWishList(wishlist, productId);
+        doReturn(updatedWishlist).when(wishlistService).updateWishList(wishlistId, productId, null);
         mvc.perform(post(URL_WISHLIST + "/wishlistId/items/productId")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(asJsonString(productId)))
@@ -248,58 +355,36 @@ class WishlistControllerIntegrationTest {
         String wishlistId = "wishlistId";
         String productId = "productId";
 
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId("userId")
-                .createdAt(instant)
-                .updatedAt(instant)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id("wishlistItemId")
-                        .createdAt(instant)
-                        .product(Product.builder()
-                                .id("productId")
-                                .name("product test")
-                                .price(BigDecimal.valueOf(11.5))
-                                .description("product test description")
-                                .build())
-                        .build()))
-                .build();
-
-        doReturn(wishlist).when(wishlistService).findById(wishlistId);
         doThrow(new RegisteredProductException(RegisteredProductException.EXCEPTION_MESSAGE))
-                .when(wishlistService).updateWishList(wishlist, productId);
+                .when(wishlistService).updateWishList(wishlistId, productId, null);
         mvc.perform(post(URL_WISHLIST + "/wishlistId/items/productId")
                         .contentType(MediaType.APPLICATION_JSON).content(asJsonString(productId)))
                 .andExpect(jsonPath("$.error", is(RegisteredProductException.EXCEPTION_MESSAGE)))
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @SneakyThrows
+    void incrementWishlist_concurrent_updates()  {
+        String wishlistId = "wishlistId";
+        String productId = "productId";
+
+        doThrow(new ConflictException(WishlistService.WISHLIST_CONCURRENT_UPDATE_EXCEPTION_MESSAGE))
+                .when(wishlistService).updateWishList(wishlistId, productId, null);
+        mvc.perform(post(URL_WISHLIST + "/wishlistId/items/productId")
+                        .contentType(MediaType.APPLICATION_JSON).content(asJsonString(productId)))
+                .andExpect(jsonPath("$.error", is(ConflictException.EXCEPTION_MESSAGE)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @SneakyThrows
     void incrementWishlist_product_not_found()  {
         String wishlistId = "wishlistId";
         String productId = "productIdTest";
 
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId("userId")
-                .createdAt(instant)
-                .updatedAt(instant)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id("wishlistItemId")
-                        .createdAt(instant)
-                        .product(Product.builder()
-                                .id("productId")
-                                .name("product test")
-                                .price(BigDecimal.valueOf(11.5))
-                                .description("product test description")
-                                .build())
-                        .build()))
-                .build();
-
-        doReturn(wishlist).when(wishlistService).findById(wishlistId);
         doThrow(new ResourceNotFoundException(ResourceNotFoundException.EXCEPTION_MESSAGE))
-                .when(wishlistService).updateWishList(wishlist, productId);
+                .when(wishlistService).updateWishList(wishlistId, productId, null);
         mvc.perform(post(URL_WISHLIST + "/wishlistId/items/productIdTest")
                         .contentType(MediaType.APPLICATION_JSON).content(asJsonString(productId)))
                 .andExpect(jsonPath("$.error", is(ResourceNotFoundException.EXCEPTION_MESSAGE)))
@@ -311,62 +396,21 @@ class WishlistControllerIntegrationTest {
     void incrementWishlist_max_size() {
         String wishlistId = "wishlistId";
         String productId = "productId";
-        List<WishListItem> items = new ArrayList<>();
-        for (int i = 0; i < WishlistService.WISHLIST_MAX_SIZE; i++) {
-            items.add(WishListItem.builder()
-                    .id(UUID.randomUUID().toString())
-                    .createdAt(Instant.now())
-                    .product(Product.builder()
-                            .id("productId" + i)
-                            .name("product name" + i)
-                            .description("product description" + i)
-                            .price(BigDecimal.valueOf(10.0 + i))
-                            .build())
-                    .build());
-        }
-
-        Wishlist wishlist = Wishlist.builder()
-                .id("wishlistId")
-                .userId("userId")
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(items)
-                .build();
 
-        doReturn(wishlist).when(wishlistService).findById(wishlistId);
         doThrow(new WishlistMaxSizeException(WishlistMaxSizeException.EXCEPTION_MESSAGE)).
-                when(wishlistService).updateWishList(wishlist, productId);
+                when(wishlistService).updateWishList(wishlistId, productId, null);
         mvc.perform(post(URL_WISHLIST + "/wishlistId/items/productId").
                 contentType(MediaType.APPLICATION_JSON).content(asJsonString(productId)))
                 .andExpect(jsonPath("$.error", is(WishlistMaxSizeException.EXCEPTION_MESSAGE)))
                 .andExpect(status().isBadRequest());
     }
 
-
     @Test
     @SneakyThrows
     void deleteProduct()  {
         String wishlistId = "wishlistId";
-        String userId = "userid1";
         String itemId = "itemId";
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId(userId)
-                .createdAt(instant)
-                .updatedAt(instant)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id("wishlistItemId")
-                        .createdAt(instant)
-                        .product(Product.builder()
-                                .id("productId")
-                                .name("product test")
-                                .price(BigDecimal.valueOf(11.5))
-                                .description("product test description")
-                                .build())
-                        .build()))
-                .build();
-        doReturn(wishlist).when(wishlistService).findById(wishlistId);
-        doNothing().when(wishlistService).removeWishListProduct(wishlist, itemId);
+        doNothing().when(wishlistService).removeWishListProduct(wishlistId, itemId, null);
         mvc.perform(delete(URL_WISHLIST + "/{wishlistId}/items/{itemId}", wishlistId, itemId).contentType(MediaType.APPLICATION_JSON));
     }
 
@@ -374,27 +418,9 @@ class WishlistControllerIntegrationTest {
     @SneakyThrows
     void deleteProduct_not_found() {
         String wishlistId = "wishlistId";
-        String userId = "userid1";
         String itemId = "itemId";
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId(userId)
-                .createdAt(instant)
-                .updatedAt(instant)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id("wishlistItemId")
-                        .createdAt(instant)
-                        .product(Product.builder()
-                                .id("productId")
-                                .name("product test")
-                                .price(BigDecimal.valueOf(11.5))
-                                .description("product test description")
-                                .build())
-                        .build()))
-                .build();
-        doReturn(wishlist).when(wishlistService).findById(wishlistId);
         doThrow(new ResourceNotFoundException(WishlistMaxSizeException.EXCEPTION_MESSAGE))
-                .when(wishlistService).removeWishListProduct(wishlist, itemId);
+                .when(wishlistService).removeWishListProduct(wishlistId, itemId, null);
         mvc.perform(delete(URL_WISHLIST + "/{wishlistId}/items/{itemId}", wishlistId, itemId)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.error", is(ResourceNotFoundException.EXCEPTION_MESSAGE)))
@@ -1,13 +1,19 @@
 package com.jayatech.wishlist.api.controller;
 
+import com.jayatech.wishlist.domain.exception.PreconditionFailedException;
 import com.jayatech.wishlist.domain.exception.RegisteredProductException;
 import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
+import com.jayatech.wishlist.domain.exception.UnknownViewException;
 import com.jayatech.wishlist.domain.exception.WishlistMaxSizeException;
 import com.jayatech.wishlist.domain.model.Product;
 import com.jayatech.wishlist.domain.model.WishListItem;
 import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.CompactWishlist;
 import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
 import com.jayatech.wishlist.domain.model.dto.UserDTO;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistView;
 import com.jayatech.wishlist.domain.service.WishlistService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -53,7 +59,6 @@ class WishlistControllerTest {
         assertSame(wishlist, responseEntity.getBody());
     }
 
-
     @Test
     @DisplayName("Should get product by Id wish status 200")
     void getProductId() {
@@ -65,7 +70,7 @@ class WishlistControllerTest {
                 .wishListItems(Collections.emptyList())
                 .build();
         when(wishlistService.findById(wishlisId)).thenReturn(wishlist);
-        ResponseEntity<Wishlist> responseEntity = wishListController.getWishList(wishlisId);
+        ResponseEntity<Wishlist> responseEntity = wishListController.getWishList(wishlisId, null);
         verify(wishlistService).findById(wishlisId);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertSame(wishlist, responseEntity.getBody());
@@ -92,18 +97,181 @@ class WishlistControllerTest {
                         .build()))
                 .build();
         when(wishlistService.findById(wishlisId)).thenReturn(wishlist);
-        ResponseEntity<Wishlist> responseEntity = wishListController.getWishList(wishlisId);
+        ResponseEntity<Wishlist> responseEntity = wishListController.getWishList(wishlisId, null);
         verify(wishlistService).findById(wishlisId);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertSame(wishlist, responseEntity.getBody());
     }
 
+    @Test
+    @DisplayName("Should tag the wishlist with its version")
+    void getWishList_eTag() {
+        String wishlistId = "wishlistId";
+        Wishlist wishlist = Wishlist.builder()
+                .id(wishlistId)
+                .userId("userId1")
+                .createdAt(Instant.now())
+                .wishListItems(Collections.emptyList())
+                .version(3L)
+                .build();
+        when(wishlistService.findVersion(wishlistId)).thenReturn(3L);
+        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
+        ResponseEntity<Wishlist> responseEntity = wishListController.getWishList(wishlistId, "\"2\"");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("\"3\"", responseEntity.getHeaders().getETag());
+        assertSame(wishlist, responseEntity.getBody());
+    }
+
+    @Test
+    @DisplayName("Should answer 304 without loading a wishlist whose version did not change")
+    void getWishList_notModified() {
+        String wishlistId = "wishlistId";
+        when(wishlistService.findVersion(wishlistId)).thenReturn(3L);
+        ResponseEntity<Wishlist> responseEntity = wishListController.getWishList(wishlistId, "\"1\", W/\"3\"");
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertEquals("\"3\"", responseEntity.getHeaders().getETag());
+        assertNull(responseEntity.getBody());
+        verify(wishlistService, never()).findById(wishlistId);
+    }
+
+    @Test
+    @DisplayName("Should serve the ids view as a compact wishlist tagged with the version and the view")
+    void getWishListView_ids() {
+        String wishlistId = "wishlistId";
+        Wishlist wishlist = Wishlist.builder()
+                .id(wishlistId)
+                .userId("userId1")
+                .wishListItems(List.of(WishListItem.builder()
+                        .id("wishListItemId")
+                        .product(Product.builder().id("productId").name("Mouse").price(BigDecimal.TEN).build())
+                        .build()))
+                .version(3L)
+                .build();
+        when(wishlistService.findById(wishlistId, WishlistView.IDS)).thenReturn(wishlist);
+        ResponseEntity<Object> responseEntity = wishListController.getWishListView(wishlistId, "IDS", null);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("\"3-ids\"", responseEntity.getHeaders().getETag());
+        CompactWishlist body = assertInstanceOf(CompactWishlist.class, responseEntity.getBody());
+        assertEquals(1, body.getSize());
+        assertEquals("productId", body.getWishListItems().get(0).getProduct().getId());
+        assertNull(body.getWishListItems().get(0).getProduct().getName());
+        verify(wishlistService, never()).findVersion(wishlistId);
+    }
+
+    @Test
+    @DisplayName("Should answer 304 only to the tag of the requested view")
+    void getWishListView_notModified() {
+        String wishlistId = "wishlistId";
+        when(wishlistService.findVersion(wishlistId)).thenReturn(3L);
+        ResponseEntity<Object> responseEntity = wishListController.getWishListView(wishlistId, "compact", "\"3-compact\"");
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertEquals("\"3-compact\"", responseEntity.getHeaders().getETag());
+        verify(wishlistService, never()).findById(anyString(), any(WishlistView.class));
+        when(wishlistService.findById(wishlistId, WishlistView.FULL)).thenReturn(Wishlist.builder()
+                .id(wishlistId)
+                .wishListItems(Collections.emptyList())
+                .version(3L)
+                .build());
+        responseEntity = wishListController.getWishListView(wishlistId, "full", "\"3-compact\"");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("\"3\"", responseEntity.getHeaders().getETag());
+        assertInstanceOf(Wishlist.class, responseEntity.getBody());
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown view with status 400")
+    void getWishListView_unknown() {
+        assertThrows(UnknownViewException.class, () -> wishListController.getWishListView("wishlistId", "tiny", null));
+        verifyNoInteractions(wishlistService);
+    }
+
+    @Test
+    @DisplayName("Should include the product on the version of If-Match and tag the response with the new one")
+    void incrementWishlist_ifMatch() {
+        Wishlist wishlist = Wishlist.builder()
+                .id("wishlistId")
+                .wishListItems(Collections.emptyList())
+                .version(5L)
+                .build();
+        when(wishlistService.updateWishList("wishlistId", "productId", 4L)).thenReturn(wishlist);
+        ResponseEntity<Wishlist> responseEntity = wishListController.incrementWishlist("wishlistId", "productId", "\"4\"");
+        assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        assertEquals("\"5\"", responseEntity.getHeaders().getETag());
+        wishListController.incrementWishlist("wishlistId", "productId", "\"4-compact\"");
+        verify(wishlistService, times(2)).updateWishList("wishlistId", "productId", 4L);
+    }
+
+    @Test
+    @DisplayName("Should apply a batch on the version of If-Match and tag the response with the new one")
+    void updateWishlistItems_ifMatch() {
+        WishlistBatchRequest batch = WishlistBatchRequest.builder().add(List.of("productId")).build();
+        WishlistBatchResponse response = new WishlistBatchResponse(Wishlist.builder()
+                .id("wishlistId")
+                .wishListItems(Collections.emptyList())
+                .version(5L)
+                .build(), Collections.emptyList());
+        when(wishlistService.updateWishListItems("wishlistId", batch, 4L)).thenReturn(response);
+        ResponseEntity<WishlistBatchResponse> responseEntity = wishListController.updateWishlistItems("wishlistId", batch, "\"4\"");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("\"5\"", responseEntity.getHeaders().getETag());
+        assertSame(response, responseEntity.getBody());
+    }
+
+    @Test
+    @DisplayName("Should reject an If-Match that is not the tag of a wishlist version with status 412")
+    void deleteProduct_invalidIfMatch() {
+        assertThrows(PreconditionFailedException.class, () ->
+                wishListController.deleteProductWishList("wishlistId", "itemId", "W/\"4\""));
+        verifyNoInteractions(wishlistService);
+    }
+
+    @Test
+    @DisplayName("Should serve the wishlist of a user through its wishlist id")
+    void getUserWishList() {
+        Wishlist wishlist = Wishlist.builder()
+                .id("wishlistId")
+                .userId("userId")
+                .wishListItems(Collections.emptyList())
+                .version(2L)
+                .build();
+        when(wishlistService.findIdByUserId("userId")).thenReturn("wishlistId");
+        when(wishlistService.findById("wishlistId")).thenReturn(wishlist);
+        ResponseEntity<Wishlist> responseEntity = wishListController.getUserWishList("userId", null);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("\"2\"", responseEntity.getHeaders().getETag());
+        assertSame(wishlist, responseEntity.getBody());
+    }
+
+    @Test
+    @DisplayName("Should change and check the wishlist of a user through its wishlist id")
+    void userWishList_mutations() {
+        when(wishlistService.findIdByUserId("userId")).thenReturn("wishlistId");
+        when(wishlistService.updateWishList("wishlistId", "productId", 1L)).thenReturn(Wishlist.builder()
+                .id("wishlistId")
+                .wishListItems(Collections.emptyList())
+                .version(2L)
+                .build());
+        when(wishlistService.checkProducts("wishlistId", Set.of("productId"))).thenReturn(Map.of("productId", true));
+        assertEquals(HttpStatus.CREATED, wishListController.incrementUserWishlist("userId", "productId", "\"1\"").getStatusCode());
+        assertEquals(Map.of("productId", true), wishListController.checkUserWishListProducts("userId", Set.of("productId")).getBody());
+        wishListController.deleteProductUserWishList("userId", "itemId", null);
+        verify(wishlistService).removeWishListProduct("wishlistId", "itemId", null);
+    }
+
+    @Test
+    @DisplayName("Should answer 404 for a user without a wishlist")
+    void getUserWishList_notFound() {
+        when(wishlistService.findIdByUserId("userId")).thenThrow(ResourceNotFoundException.class);
+        assertThrows(ResourceNotFoundException.class, () -> wishListController.getUserWishList("userId", null));
+        verify(wishlistService, never()).findById(anyString());
+    }
+
     @Test
     @DisplayName("Should throw a not found exception wish status 404")
     void getProductId_ProductNotFound() {
         String id = "wishlistId";
         when(wishlistService.findById(id)).thenThrow(ResourceNotFoundException.class);
-        assertThrows(ResourceNotFoundException.class, () -> wishListController.getWishList(id));
+        assertThrows(ResourceNotFoundException.class, () -> wishListController.getWishList(id, null));
         verify(wishlistService).findById(id);
     }
 
@@ -118,22 +286,10 @@ class WishlistControllerTest {
                 .price(BigDecimal.valueOf(11.5))
                 .description("product test description")
                 .build();
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId("userId1")
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(Collections.singletonList(WishListItem.builder().
-                        id("wishListItemId")
-                        .createdAt(Instant.now())
-                        .product(product)
-                        .build()))
-                .build();
         ProductCheckResponse expectedResponse = new ProductCheckResponse(product);
-        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
-        when(wishlistService.checkProduct(wishlist, productId)).thenReturn(expectedResponse);
+        when(wishlistService.checkProduct(wishlistId, productId)).thenReturn(expectedResponse);
         ResponseEntity<ProductCheckResponse> responseEntity = wishListController.checkWishList(wishlistId, productId);
-        verify(wishlistService).checkProduct(wishlist, productId);
+        verify(wishlistService).checkProduct(wishlistId, productId);
         assertEquals(expectedResponse, responseEntity.getBody());
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
     }
@@ -143,18 +299,23 @@ class WishlistControllerTest {
     void checkWishList() {
         String wishlistId = "wishlistId";
         String productId = "productId";
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId("userId1")
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(Collections.emptyList())
-                .build();
         ProductCheckResponse expectedResponse = new ProductCheckResponse();
-        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
-        when(wishlistService.checkProduct(wishlist, productId)).thenReturn(expectedResponse);
+        when(wishlistService.checkProduct(wishlistId, productId)).thenReturn(expectedResponse);
         ResponseEntity<ProductCheckResponse> responseEntity = wishListController.checkWishList(wishlistId, productId);
-        verify(wishlistService).checkProduct(wishlist, productId);
+        verify(wishlistService).checkProduct(wishlistId, productId);
+        assertEquals(expectedResponse, responseEntity.getBody());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should check several products in a wishlist with status 200")
+    void checkWishListProducts() {
+        String wishlistId = "wishlistId";
+        Set<String> productIds = new LinkedHashSet<>(List.of("productId1", "productId2"));
+        Map<String, Boolean> expectedResponse = Map.of("productId1", true, "productId2", false);
+        when(wishlistService.checkProducts(wishlistId, productIds)).thenReturn(expectedResponse);
+        ResponseEntity<Map<String, Boolean>> responseEntity = wishListController.checkWishListProducts(wishlistId, productIds);
+        verify(wishlistService).checkProducts(wishlistId, productIds);
         assertEquals(expectedResponse, responseEntity.getBody());
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
     }
@@ -192,10 +353,9 @@ class WishlistControllerTest {
                         .build()))
                 .build();
 
-        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
-        when(wishlistService.updateWishList(wishlist, productId)).thenReturn(wishlistUpdated);
-        ResponseEntity<Wishlist> responseEntity = wishListController.incrementWishlist(wishlistId, productId);
-        verify(wishlistService).updateWishList(wishlist, productId);
+        when(wishlistService.updateWishList(wishlistId, productId, null)).thenReturn(wishlistUpdated);
+        ResponseEntity<Wishlist> responseEntity = wishListController.incrementWishlist(wishlistId, productId, null);
+        verify(wishlistService).updateWishList(wishlistId, productId, null);
         assertEquals(wishlistUpdated, responseEntity.getBody());
         assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
     }
@@ -205,29 +365,12 @@ class WishlistControllerTest {
     void incrementWishList_product_found() {
         String wishlistId = "wishlistId";
         String productId = "productId";
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId("userId1")
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id("wishListItemId")
-                        .createdAt(Instant.now())
-                        .product(Product.builder()
-                                .id(productId)
-                                .name("product name test")
-                                .price(BigDecimal.valueOf(11.5))
-                                .description("product test description")
-                                .build())
-                        .build()))
-                .build();
 
-        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
-        when(wishlistService.updateWishList(wishlist, productId)).thenThrow(RegisteredProductException.class);
+        when(wishlistService.updateWishList(wishlistId, productId, null)).thenThrow(RegisteredProductException.class);
 
-        assertThrows(RegisteredProductException.class, () -> wishListController.incrementWishlist(wishlistId, productId));
-        verify(wishlistService).findById(wishlistId);
-        verify(wishlistService).updateWishList(wishlist, productId);
+        assertThrows(RegisteredProductException.class, () -> wishListController.incrementWishlist(wishlistId, productId, null));
+        verify(wishlistService, never()).findById(wishlistId);
+        verify(wishlistService).updateWishList(wishlistId, productId, null);
     }
 
     @Test
@@ -235,29 +378,12 @@ class WishlistControllerTest {
     void incrementWishList_product_not_found() {
         String wishlistId = "wishlistId";
         String productId = "productIdtest";
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId("userId1")
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id("wishListItemId")
-                        .createdAt(Instant.now())
-                        .product(Product.builder()
-                                .id("productId")
-                                .name("product name test")
-                                .price(BigDecimal.valueOf(11.5))
-                                .description("product test description")
-                                .build())
-                        .build()))
-                .build();
 
-        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
-        when(wishlistService.updateWishList(wishlist, productId)).thenThrow(ResourceNotFoundException.class);
+        when(wishlistService.updateWishList(wishlistId, productId, null)).thenThrow(ResourceNotFoundException.class);
 
-        assertThrows(ResourceNotFoundException.class, () -> wishListController.incrementWishlist(wishlistId, productId));
-        verify(wishlistService).findById(wishlistId);
-        verify(wishlistService).updateWishList(wishlist, productId);
+        assertThrows(ResourceNotFoundException.class, () -> wishListController.incrementWishlist(wishlistId, productId, null));
+        verify(wishlistService, never()).findById(wishlistId);
+        verify(wishlistService).updateWishList(wishlistId, productId, null);
     }
 
     @Test
@@ -265,36 +391,14 @@ class WishlistControllerTest {
     void incrementWishList_max_size() {
         String wishlistId = "wishlistId";
         String productId = "productId";
-        List<WishListItem> items = new ArrayList<>();
-        for (int i = 0; i < WishlistService.WISHLIST_MAX_SIZE; i++) {
-            items.add(WishListItem.builder()
-                    .id(UUID.randomUUID().toString())
-                    .createdAt(Instant.now())
-                    .product(Product.builder()
-                            .id("productId" + i)
-                            .name("product name" + i)
-                            .description("product description" + i)
-                            .price(BigDecimal.valueOf(10.0 + i))
-                            .build())
-                    .build());
-        }
 
-        Wishlist wishlist = Wishlist.builder()
-                .id("wishlistId")
-                .userId("userId")
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(items)
-                .build();
-
-        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
-        when(wishlistService.updateWishList(wishlist, productId))
+        when(wishlistService.updateWishList(wishlistId, productId, null))
                 .thenThrow(WishlistMaxSizeException.class);
 
         assertThrows(WishlistMaxSizeException.class, () ->
-                wishListController.incrementWishlist(wishlistId, productId));
-        verify(wishlistService).findById(wishlistId);
-        verify(wishlistService).updateWishList(wishlist, productId);
+                wishListController.incrementWishlist(wishlistId, productId, null));
+        verify(wishlistService, never()).findById(wishlistId);
+        verify(wishlistService).updateWishList(wishlistId, productId, null);
     }
 
     @Test
@@ -321,10 +425,9 @@ class WishlistControllerTest {
                 .wishListItems(Collections.singletonList(wishListItem))
                 .build();
 
-        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
-        doNothing().when(wishlistService).removeWishListProduct(wishlist, wishlistItemId);
-        wishListController.deleteProductWishList(wishlistId, wishlistItemId);
-        verify(wishlistService, times(1)).removeWishListProduct(wishlist, wishlistItemId);
+        doNothing().when(wishlistService).removeWishListProduct(wishlistId, wishlistItemId, null);
+        wishListController.deleteProductWishList(wishlistId, wishlistItemId, null);
+        verify(wishlistService, times(1)).removeWishListProduct(wishlistId, wishlistItemId, null);
     }
 
     @Test
@@ -350,10 +453,9 @@ class WishlistControllerTest {
                 .wishListItems(Collections.singletonList(wishListItem))
                 .build();
 
-        when(wishlistService.findById(wishlistId)).thenReturn(wishlist);
-        doThrow(ResourceNotFoundException.class).when(wishlistService).removeWishListProduct(wishlist, wishlistItemId);
-        assertThrows(ResourceNotFoundException.class, () -> wishListController.deleteProductWishList(wishlistId, wishlistItemId));
-        verify(wishlistService).findById(wishlistId);
-        verify(wishlistService, times(1)).removeWishListProduct(wishlist, wishlistItemId);
+        doThrow(ResourceNotFoundException.class).when(wishlistService).removeWishListProduct(wishlistId, wishlistItemId, null);
+        assertThrows(ResourceNotFoundException.class, () -> wishListController.deleteProductWishList(wishlistId, wishlistItemId, null));
+        verify(wishlistService, never()).findById(wishlistId);
+        verify(wishlistService, times(1)).removeWishListProduct(wishlistId, wishlistItemId, null);
     }
 }
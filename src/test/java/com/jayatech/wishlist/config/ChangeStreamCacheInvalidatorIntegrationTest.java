@@ -0,0 +1,105 @@
+package com.jayatech.wishlist.config;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.service.ProductService;
+import com.jayatech.wishlist.domain.service.WishlistService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.SneakyThrows;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static com.jayatech.wishlist.config.CacheConfig.PRODUCTS_CACHE;
+import static com.jayatech.wishlist.config.CacheConfig.WISHLISTS_CACHE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes straight to the database, the way another instance would, and waits for the change stream
+ * of the single-node replica set to evict the local cache entries.
+ */
+@SpringBootTest
+class ChangeStreamCacheInvalidatorIntegrationTest {
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0")
+            .withExposedPorts(27017);
+
+    @DynamicPropertySource
+    static void mongoDbProperties(DynamicPropertyRegistry registry) {
+        mongoDBContainer.start();
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+        registry.add("wishlist.cache.invalidation.enabled", () -> "true");
+        registry.add("wishlist.cache.invalidation.listener-id", () -> "integration-test");
+    }
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void wishlistWrittenElsewhere_evicted() {
+        Wishlist wishlist = wishlistService.saveWishList(UUID.randomUUID().toString());
+        assertNotNull(cacheManager.getCache(WISHLISTS_CACHE).get(wishlist.getId()));
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(wishlist.getId())),
+                Update.update("updatedAt", Instant.now()), Wishlist.class);
+
+        await(() -> Objects.isNull(cacheManager.getCache(WISHLISTS_CACHE).get(wishlist.getId())));
+        assertTrue(meterRegistry.get(ChangeStreamCacheInvalidator.LAG_TIMER).tag("collection", "wishlists").timer().count() > 0);
+        await(() -> mongoTemplate.getCollection(ChangeStreamCacheInvalidator.RESUME_TOKENS_COLLECTION)
+                .countDocuments(new Document("_id", "integration-test")) == 1);
+    }
+
+    @Test
+    void productWrittenElsewhere_evictedAndPropagated() {
+        Product product = productService.findAll().get(0);
+        Wishlist wishlist = wishlistService.saveWishList(UUID.randomUUID().toString());
+        wishlistService.updateWishList(wishlist.getId(), product.getId());
+        productService.findById(product.getId());
+        assertNotNull(cacheManager.getCache(PRODUCTS_CACHE).get(product.getId()));
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(product.getId())),
+                Update.update("name", product.getName() + " v2"), Product.class);
+
+        await(() -> Objects.isNull(cacheManager.getCache(PRODUCTS_CACHE).get(product.getId())));
+        await(() -> (product.getName() + " v2").equals(wishlistService.findById(wishlist.getId())
+                .getWishListItems().get(0).getProduct().getName()));
+    }
+
+    @SneakyThrows
+    private static void await(BooleanSupplier condition) {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+        while (!condition.getAsBoolean()) {
+            assertTrue(Instant.now().isBefore(deadline), "Condition not met within 10s");
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.jayatech.wishlist.config;
+
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.repository.JobLeaseRepository;
+import com.jayatech.wishlist.domain.service.ProductSnapshotPropagator;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.*;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+
+import static com.jayatech.wishlist.config.CacheConfig.PRODUCTS_CACHE;
+import static com.jayatech.wishlist.config.CacheConfig.WISHLISTS_CACHE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeStreamCacheInvalidatorTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ObjectProvider<ProductSnapshotPropagator> snapshotPropagator;
+
+    @Mock
+    private ProductSnapshotPropagator propagator;
+
+    @Mock
+    private JobLeaseRepository jobLeaseRepository;
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager(PRODUCTS_CACHE, WISHLISTS_CACHE);
+
+    private MeterRegistry meterRegistry;
+
+    private ChangeStreamCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(Product.class)).thenReturn("products");
+        when(mongoTemplate.getCollectionName(Wishlist.class)).thenReturn("wishlists");
+        meterRegistry = new SimpleMeterRegistry();
+        WishlistCacheProperties properties = new WishlistCacheProperties();
+        properties.getInvalidation().setListenerId("test");
+        invalidator = new ChangeStreamCacheInvalidator(mongoTemplate, cacheManager, snapshotPropagator, jobLeaseRepository, meterRegistry, properties);
+    }
+
+    private static ChangeStreamDocument<Document> event(OperationType operation, String collection, BsonValue id) {
+        return event(operation, collection, id, null);
+    }
+
+    private static ChangeStreamDocument<Document> event(OperationType operation, String collection, BsonValue id,
+                                                        UpdateDescription updateDescription) {
+        BsonDocument namespace = new BsonDocument("db", new BsonString("wishlist-db"));
+        if (collection != null) {
+            namespace.append("coll", new BsonString(collection));
+        }
+        return new ChangeStreamDocument<>(operation.getValue(), new BsonDocument("_data", new BsonString("token")),
+                namespace, null, null, null, id != null ? new BsonDocument("_id", id) : null,
+                new BsonTimestamp((int) Instant.now().getEpochSecond(), 1), updateDescription, null, null,
+                new BsonDateTime(Instant.now().minusMillis(50).toEpochMilli()), null);
+    }
+
+    @Test
+    @DisplayName("Should evict a changed wishlist and record the propagation lag")
+    void apply_wishlistChanged() {
+        ObjectId wishlistId = new ObjectId();
+        cacheManager.getCache(WISHLISTS_CACHE).put(wishlistId.toHexString(), Wishlist.builder().build());
+        cacheManager.getCache(WISHLISTS_CACHE).put("other", Wishlist.builder().build());
+        invalidator.apply(event(OperationType.UPDATE, "wishlists", new BsonObjectId(wishlistId)));
+        assertNull(cacheManager.getCache(WISHLISTS_CACHE).get(wishlistId.toHexString()));
+        assertNotNull(cacheManager.getCache(WISHLISTS_CACHE).get("other"));
+        assertEquals(1, meterRegistry.get(ChangeStreamCacheInvalidator.LAG_TIMER).tag("collection", "wishlists").timer().count());
+        verifyNoInteractions(snapshotPropagator);
+    }
+
+    @Test
+    @DisplayName("Should invalidate a changed wishlist by the version written, keeping a newer cached version")
+    void apply_wishlistVersion() {
+        Cache cache = cacheManager.getCache(WISHLISTS_CACHE);
+        cache.put("stale", Wishlist.builder().id("stale").wishListItems(new ArrayList<>()).version(2L).build());
+        cache.put("current", Wishlist.builder().id("current").wishListItems(new ArrayList<>()).version(3L).build());
+        UpdateDescription update = new UpdateDescription(null, new BsonDocument("version", new BsonInt64(3L)));
+        invalidator.apply(event(OperationType.UPDATE, "wishlists", new BsonString("stale"), update));
+        invalidator.apply(event(OperationType.UPDATE, "wishlists", new BsonString("current"), update));
+        invalidator.apply(event(OperationType.UPDATE, "wishlists", new BsonString("loading"), update));
+        assertFalse(cache.get("stale").get() instanceof Wishlist);
+        assertFalse(cache.get("loading").get() instanceof Wishlist);
+        assertEquals(3L, cache.get("current", Wishlist.class).getVersion());
+        assertEquals(3L, ChangeStreamCacheInvalidator.versionOf(event(OperationType.UPDATE, "wishlists", new BsonString("stale"), update)));
+        assertNull(ChangeStreamCacheInvalidator.versionOf(event(OperationType.UPDATE, "wishlists", new BsonString("stale"),
+                new UpdateDescription(null, new BsonDocument("userId", new BsonString("other"))))));
+    }
+
+    @Test
+    @DisplayName("Should refuse to follow the stream without a listener id")
+    void listenerIdRequired() {
+        WishlistCacheProperties properties = new WishlistCacheProperties();
+        properties.getInvalidation().setEnabled(true);
+        assertThrows(IllegalStateException.class, () ->
+                new ChangeStreamCacheInvalidator(mongoTemplate, cacheManager, snapshotPropagator, jobLeaseRepository, meterRegistry, properties));
+    }
+
+    @Test
+    @DisplayName("Should evict a changed product and propagate its snapshots when holding the propagation lease")
+    void apply_productChanged() {
+        String productId = new ObjectId().toHexString();
+        Product product = Product.builder().id(productId).name("changed").build();
+        cacheManager.getCache(PRODUCTS_CACHE).put(productId, Product.builder().id(productId).name("cached").build());
+        when(snapshotPropagator.getIfAvailable()).thenReturn(propagator);
+        when(jobLeaseRepository.tryHold(ChangeStreamCacheInvalidator.SNAPSHOT_PROPAGATION_JOB, Duration.ofSeconds(30), "test")).thenReturn(true);
+        when(mongoTemplate.findById(productId, Product.class)).thenReturn(product);
+        invalidator.apply(event(OperationType.UPDATE, "products", new BsonObjectId(new ObjectId(productId))));
+        assertNull(cacheManager.getCache(PRODUCTS_CACHE).get(productId));
+        verify(propagator, times(1)).propagate(product);
+    }
+
+    @Test
+    @DisplayName("Should only evict a changed product when another instance holds the propagation lease")
+    void apply_productChanged_notHolder() {
+        String productId = new ObjectId().toHexString();
+        cacheManager.getCache(PRODUCTS_CACHE).put(productId, Product.builder().id(productId).name("cached").build());
+        when(snapshotPropagator.getIfAvailable()).thenReturn(propagator);
+        when(jobLeaseRepository.tryHold(ChangeStreamCacheInvalidator.SNAPSHOT_PROPAGATION_JOB, Duration.ofSeconds(30), "test")).thenReturn(false);
+        invalidator.apply(event(OperationType.UPDATE, "products", new BsonObjectId(new ObjectId(productId))));
+        assertNull(cacheManager.getCache(PRODUCTS_CACHE).get(productId));
+        verify(mongoTemplate, never()).findById(any(), any());
+        verifyNoInteractions(propagator);
+    }
+
+    @Test
+    @DisplayName("Should only evict a deleted product")
+    void apply_productDeleted() {
+        invalidator.apply(event(OperationType.DELETE, "products", new BsonString("productId")));
+        verifyNoInteractions(snapshotPropagator);
+    }
+
+    @Test
+    @DisplayName("Should clear the caches when a collection is dropped")
+    void apply_collectionDropped() {
+        cacheManager.getCache(PRODUCTS_CACHE).put("productId", Product.builder().build());
+        cacheManager.getCache(WISHLISTS_CACHE).put("wishlistId", Wishlist.builder().build());
+        invalidator.apply(event(OperationType.DROP, "wishlists", null));
+        assertNull(cacheManager.getCache(PRODUCTS_CACHE).get("productId"));
+        assertNull(cacheManager.getCache(WISHLISTS_CACHE).get("wishlistId"));
+    }
+
+    @Test
+    @DisplayName("Should key the evictions by the string form of the document id")
+    void idOf() {
+        ObjectId id = new ObjectId();
+        assertEquals(id.toHexString(), ChangeStreamCacheInvalidator.idOf(new BsonDocument("_id", new BsonObjectId(id))));
+        assertEquals("wishlistId1", ChangeStreamCacheInvalidator.idOf(new BsonDocument("_id", new BsonString("wishlistId1"))));
+        assertNull(ChangeStreamCacheInvalidator.idOf(null));
+    }
+}
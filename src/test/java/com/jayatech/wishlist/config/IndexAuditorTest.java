@@ -0,0 +1,65 @@
+package com.jayatech.wishlist.config;
+
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IndexAuditorTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoDatabase database;
+
+    private static Document plan(Document winningPlan) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan)
+                .append("rejectedPlans", List.of(new Document("stage", "COLLSCAN"))));
+    }
+
+    @Test
+    @DisplayName("Should find a collection scan nested in the winning plan")
+    void usesStage_nested() {
+        Document winningPlan = new Document("queryPlan", new Document("stage", "FETCH")
+                .append("inputStage", new Document("stage", "COLLSCAN")));
+        assertTrue(IndexAuditor.usesStage(plan(winningPlan).get("queryPlanner"), "COLLSCAN"));
+    }
+
+    @Test
+    @DisplayName("Should ignore collection scans of rejected plans")
+    void usesStage_rejectedPlan() {
+        Document winningPlan = new Document("stage", "FETCH")
+                .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "userId_unique"));
+        assertFalse(IndexAuditor.usesStage(plan(winningPlan).get("queryPlanner"), "COLLSCAN"));
+    }
+
+    @Test
+    @DisplayName("Should fail the startup on a collection scan when configured to")
+    void audit_failOnCollectionScan() {
+        when(mongoTemplate.getDb()).thenReturn(database);
+        when(database.runCommand(any(Document.class))).thenReturn(plan(new Document("stage", "COLLSCAN")));
+        IndexAuditor auditor = new IndexAuditor(mongoTemplate, true);
+        assertThrows(IllegalStateException.class, auditor::audit);
+    }
+
+    @Test
+    @DisplayName("Should only report collection scans by default")
+    void audit_reportOnly() {
+        when(mongoTemplate.getDb()).thenReturn(database);
+        when(database.runCommand(any(Document.class))).thenReturn(plan(new Document("stage", "IDHACK")));
+        IndexAuditor auditor = new IndexAuditor(mongoTemplate, false);
+        assertDoesNotThrow(auditor::audit);
+    }
+}
@@ -0,0 +1,125 @@
+package com.jayatech.wishlist.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoCommandRecorderTest {
+
+    private static final ConnectionDescription CONNECTION = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    @Mock
+    private ObjectProvider<MongoClient> mongoClient;
+
+    private MeterRegistry meterRegistry;
+
+    private MongoCommandRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new MongoCommandRecorder(meterRegistry, mongoClient, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        MongoCommandContext.clearOrigin();
+        MongoCommandContext.endRequest();
+    }
+
+    private void run(int requestId, String commandName) {
+        recorder.commandStarted(new CommandStartedEvent(requestId, CONNECTION, "wishlist-db", commandName,
+                new BsonDocument(commandName, new BsonString("wishlists"))));
+        recorder.commandSucceeded(new CommandSucceededEvent(requestId, CONNECTION, commandName, new BsonDocument(),
+                TimeUnit.MILLISECONDS.toNanos(3)));
+    }
+
+    @Test
+    @DisplayName("Should tag the command latency with the service method that issued it")
+    void commandSucceeded_taggedWithOrigin() {
+        MongoCommandContext.setOrigin("WishlistService.findById");
+        run(1, "find");
+        assertEquals(1, meterRegistry.get(MongoCommandRecorder.COMMAND_TIMER)
+                .tag("command", "find")
+                .tag("origin", "WishlistService.findById")
+                .tag("outcome", "success")
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("Should tag the commands issued outside any service method with no origin")
+    void commandSucceeded_noOrigin() {
+        run(1, "find");
+        assertEquals(1, meterRegistry.get(MongoCommandRecorder.COMMAND_TIMER)
+                .tag("origin", MongoCommandContext.NO_ORIGIN)
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("Should record failed commands apart from the successful ones")
+    void commandFailed() {
+        recorder.commandStarted(new CommandStartedEvent(1, CONNECTION, "wishlist-db", "update", new BsonDocument()));
+        recorder.commandFailed(new CommandFailedEvent(1, CONNECTION, "update", 1000, new IllegalStateException()));
+        assertEquals(1, meterRegistry.get(MongoCommandRecorder.COMMAND_TIMER)
+                .tag("outcome", "failure")
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("Should count the commands issued by the request bound to the thread")
+    void commandStarted_countsRequestCommands() {
+        MongoCommandContext.startRequest();
+        run(1, "find");
+        run(2, "find");
+        run(3, "update");
+        assertEquals(3, MongoCommandContext.endRequest());
+    }
+
+    @Test
+    @DisplayName("Should strip the session fields the explain command rejects")
+    void explainable() {
+        BsonDocument command = new BsonDocument("find", new BsonString("wishlists"))
+                .append("$db", new BsonString("wishlist-db"))
+                .append("lsid", new BsonDocument())
+                .append("txnNumber", new BsonInt64(1));
+        assertEquals(new BsonDocument("find", new BsonString("wishlists")), MongoCommandRecorder.explainable(command));
+    }
+
+    @Test
+    @DisplayName("Should summarize the winning plan from its first stage up with the execution counters")
+    void summarize() {
+        Document explained = new Document("queryPlanner", new Document("winningPlan", new Document("stage", "FETCH")
+                .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "userId_unique"))))
+                .append("executionStats", new Document("totalKeysExamined", 1)
+                        .append("totalDocsExamined", 1)
+                        .append("nReturned", 1)
+                        .append("executionTimeMillis", 0));
+        assertEquals("IXSCAN(userId_unique) > FETCH, keys examined 1, docs examined 1, returned 1, server time 0ms",
+                MongoCommandRecorder.summarize(explained));
+    }
+}
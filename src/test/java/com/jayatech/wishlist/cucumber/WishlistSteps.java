@@ -96,7 +96,7 @@ public class WishlistSteps {
     @When("I request the wishlist with ID")
     public void requestTheWishlistWithID() {
         try {
-            response = wishlistController.getWishList(wishlistId);
+            response = wishlistController.getWishList(wishlistId, null);
         } catch (ResourceNotFoundException e) {
             exception = e;
         }
@@ -121,7 +121,7 @@ public class WishlistSteps {
     @Then("increment wishlist with a product")
     public void incrementWishlistWithAProduct() {
         try {
-            response = wishlistController.incrementWishlist(wishlistId, productId);
+            response = wishlistController.incrementWishlist(wishlistId, productId, null);
         } catch (RegisteredProductException e) {
             exception = e;
         }
@@ -170,7 +170,7 @@ public class WishlistSteps {
     @Then("delete a wishlistItem of a wishlist")
     public void deleteAWishlistItemOfAWishlist() {
         try {
-            wishlistController.deleteProductWishList(wishlistId, wishlistItemId);
+            wishlistController.deleteProductWishList(wishlistId, wishlistItemId, null);
         } catch (ResourceNotFoundException e) {
             exception = e;
         }
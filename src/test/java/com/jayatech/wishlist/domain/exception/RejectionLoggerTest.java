@@ -0,0 +1,67 @@
+package com.jayatech.wishlist.domain.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RejectionLoggerTest {
+
+    private static final Duration INTERVAL = Duration.ofSeconds(10);
+
+    @Mock
+    private Logger log;
+
+    private final AtomicLong clock = new AtomicLong(1_000L);
+
+    @Test
+    @DisplayName("Should log a rejection type once per interval with the rejections since the previous line")
+    void log_rateLimited() {
+        RejectionLogger rejectionLogger = new RejectionLogger(log, INTERVAL, clock::get);
+        assertTrue(rejectionLogger.log(HttpStatus.NOT_FOUND, new ResourceNotFoundException("first"), "/wishlist/a"));
+        assertFalse(rejectionLogger.log(HttpStatus.NOT_FOUND, new ResourceNotFoundException("second"), "/wishlist/b"));
+        assertTrue(rejectionLogger.log(HttpStatus.BAD_REQUEST, new RegisteredProductException("other"), "/wishlist/c/items/p"));
+        clock.addAndGet(INTERVAL.toNanos() - 1);
+        assertFalse(rejectionLogger.log(HttpStatus.NOT_FOUND, new ResourceNotFoundException("third"), "/wishlist/d"));
+        clock.incrementAndGet();
+        assertTrue(rejectionLogger.log(HttpStatus.NOT_FOUND, new ResourceNotFoundException("fourth"), "/wishlist/e"));
+        verify(log).info(anyString(), eq(404), eq("ResourceNotFoundException"), eq(1L), eq("first"), eq("/wishlist/a"));
+        verify(log).info(anyString(), eq(404), eq("ResourceNotFoundException"), eq(3L), eq("fourth"), eq("/wishlist/e"));
+        verify(log).info(anyString(), eq(400), eq("RegisteredProductException"), eq(1L), eq("other"), eq("/wishlist/c/items/p"));
+        verify(log, never()).error(anyString(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should log every rejection with debug enabled")
+    void log_debug() {
+        when(log.isDebugEnabled()).thenReturn(true);
+        RejectionLogger rejectionLogger = new RejectionLogger(log, INTERVAL, clock::get);
+        rejectionLogger.log(HttpStatus.NOT_FOUND, new ResourceNotFoundException("first"), "/wishlist/a");
+        rejectionLogger.log(HttpStatus.NOT_FOUND, new ResourceNotFoundException("second"), "/wishlist/b");
+        verify(log, times(2)).debug(anyString(), eq(404), eq("ResourceNotFoundException"), anyString(), anyString());
+        verify(log, never()).info(anyString(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should build the expected rejections without a stack trace")
+    void businessExceptions_stackless() {
+        BusinessException e = new WishlistMaxSizeException("wishlist.maximum.size");
+        e.addSuppressed(new IllegalStateException());
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals(0, e.getSuppressed().length);
+        assertEquals("wishlist.maximum.size", e.getMessage());
+        assertTrue(new InternalErrorException("failed").getStackTrace().length > 0);
+    }
+}
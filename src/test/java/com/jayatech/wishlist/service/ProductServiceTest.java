@@ -1,7 +1,9 @@
 package com.jayatech.wishlist.service;
 
+import com.jayatech.wishlist.config.CacheConfig;
 import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
 import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.dto.ProductPage;
 import com.jayatech.wishlist.domain.repository.ProductRepository;
 import com.jayatech.wishlist.domain.service.ProductService;
 import org.junit.jupiter.api.DisplayName;
@@ -10,12 +12,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +39,9 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private CacheManager cacheManager;
+
     @Test
     @DisplayName("Should get a product by Id")
     void getProduct_byId() {
@@ -85,4 +97,98 @@ class ProductServiceTest {
         assertEquals(products, new ArrayList<>());
         assertThat(new ArrayList<>()).usingRecursiveComparison().isEqualTo(products);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should get products by ids indexed by id")
+    void getProducts_byIds() {
+        Product product = Product.builder()
+                .id("100")
+                .name("product test")
+                .price(BigDecimal.valueOf(12.45))
+                .description("product test")
+                .build();
+        List<String> ids = List.of("100", "101");
+        when(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE)).thenReturn(null);
+        when(productRepository.findAllById(ids)).thenReturn(List.of(product));
+        Map<String, Product> products = productService.findAllById(ids);
+
+        verify(productRepository, times(1)).findAllById(ids);
+        assertEquals(1, products.size());
+        assertEquals(product, products.get("100"));
+        assertNull(products.get("101"));
+    }
+
+    @Test
+    @DisplayName("Should only query the products missing from the cache")
+    void getProducts_byIds_cached() {
+        Product cached = Product.builder()
+                .id("100")
+                .name("product test")
+                .price(BigDecimal.valueOf(12.45))
+                .description("product test")
+                .build();
+        Product stored = Product.builder()
+                .id("101")
+                .name("product test 2")
+                .price(BigDecimal.valueOf(20.60))
+                .description("product test 2")
+                .build();
+        Cache cache = new ConcurrentMapCache(CacheConfig.PRODUCTS_CACHE);
+        cache.put("100", cached);
+        when(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE)).thenReturn(cache);
+        when(productRepository.findAllById(List.of("101"))).thenReturn(List.of(stored));
+        Map<String, Product> products = productService.findAllById(List.of("100", "101"));
+
+        verify(productRepository, times(1)).findAllById(List.of("101"));
+        assertEquals(cached, products.get("100"));
+        assertEquals(stored, products.get("101"));
+        assertEquals(stored, cache.get("101", Product.class));
+    }
+
+    @Test
+    @DisplayName("Should get the first page of products with the next cursor")
+    void getProductsPage_first() {
+        List<Product> page = List.of(Product.builder().id("100").build(), Product.builder().id("101").build());
+        when(productRepository.findAllBy(PageRequest.of(0, 2, Sort.by("id")))).thenReturn(page);
+        ProductPage result = productService.findPage(null, 2);
+
+        assertEquals(page, result.getProducts());
+        assertEquals("101", result.getNext());
+    }
+
+    @Test
+    @DisplayName("Should get the last page of products after the cursor")
+    void getProductsPage_last() {
+        List<Product> page = List.of(Product.builder().id("102").build());
+        when(productRepository.findByIdGreaterThan("101", PageRequest.of(0, 2, Sort.by("id")))).thenReturn(page);
+        ProductPage result = productService.findPage("101", 2);
+
+        assertEquals(page, result.getProducts());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    @DisplayName("Should bound the page size")
+    void getProductsPage_boundedSize() {
+        when(productRepository.findAllBy(PageRequest.of(0, ProductService.PRODUCTS_MAX_PAGE_SIZE, Sort.by("id"))))
+                .thenReturn(new ArrayList<>());
+        ProductPage result = productService.findPage(null, 10_000);
+
+        assertEquals(0, result.getProducts().size());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    @DisplayName("Should hand every streamed product to the action and close the cursor")
+    void forEachProduct() {
+        List<String> closed = new ArrayList<>();
+        Stream<Product> stream = Stream.of(Product.builder().id("100").build(), Product.builder().id("101").build())
+                .onClose(() -> closed.add("closed"));
+        when(productRepository.streamAllBy()).thenReturn(stream);
+        List<String> ids = new ArrayList<>();
+        productService.forEachProduct(product -> ids.add(product.getId()));
+
+        assertEquals(List.of("100", "101"), ids);
+        assertEquals(List.of("closed"), closed);
+    }
+}
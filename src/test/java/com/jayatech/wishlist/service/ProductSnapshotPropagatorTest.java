@@ -0,0 +1,128 @@
+package com.jayatech.wishlist.service;
+
+import com.jayatech.wishlist.config.CacheConfig;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.repository.JobLeaseRepository;
+import com.jayatech.wishlist.domain.repository.WishlistRepository;
+import com.jayatech.wishlist.domain.service.ProductService;
+import com.jayatech.wishlist.domain.service.ProductSnapshotPropagator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSnapshotPropagatorTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private WishlistRepository wishlistRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private JobLeaseRepository jobLeaseRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ProductSnapshotPropagator propagator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        propagator = new ProductSnapshotPropagator(productService, wishlistRepository, cacheManager, jobLeaseRepository, meterRegistry,
+                false, Duration.ofMinutes(5), Duration.ofHours(6));
+    }
+
+    @Test
+    @DisplayName("Should rewrite the snapshots of a changed product and invalidate only the rewritten wishlists")
+    void propagate_changedProduct() {
+        Product product = product("productId");
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        cache.put("wishlistId", Wishlist.builder().id("wishlistId").version(1L).build());
+        cache.put("otherId", Wishlist.builder().id("otherId").version(1L).build());
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.updateProductSnapshots(product)).thenReturn(Map.of("wishlistId", 2L, "uncachedId", 5L, "thirdId", 1L));
+        assertEquals(3, propagator.propagate(product));
+        verify(productService, times(1)).evict("productId");
+        assertFalse(cache.get("wishlistId").get() instanceof Wishlist);
+        assertNotNull(cache.get("otherId", Wishlist.class));
+        assertEquals(3, meterRegistry.get("wishlist.product.snapshots.updated").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep the caches when no snapshot of the product is stale")
+    void propagate_unchangedProduct() {
+        Product product = product("productId");
+        when(wishlistRepository.updateProductSnapshots(product)).thenReturn(Map.of());
+        assertEquals(0, propagator.propagate(product));
+        verify(productService, never()).evict(any());
+        verify(cacheManager, never()).getCache(any());
+    }
+
+    @Test
+    @DisplayName("Should propagate only the products some wishlist holds a stale snapshot of, read from the database")
+    void propagateChanged() {
+        Product first = product("p1");
+        Product second = product("p2");
+        when(wishlistRepository.findProductIdsWithStaleSnapshots()).thenReturn(Set.of("p1", "p2"));
+        when(productService.findAllById(Set.of("p1", "p2"))).thenReturn(Map.of("p1", first, "p2", second));
+        when(wishlistRepository.updateProductSnapshots(first)).thenReturn(Map.of());
+        when(wishlistRepository.updateProductSnapshots(second)).thenReturn(Map.of("w1", 1L, "w2", 3L));
+        assertEquals(2, propagator.propagateChanged());
+        InOrder inOrder = inOrder(productService);
+        inOrder.verify(productService).evict("p1");
+        inOrder.verify(productService).findAllById(Set.of("p1", "p2"));
+        verify(productService, times(2)).evict("p2");
+    }
+
+    @Test
+    @DisplayName("Should not read any product when no snapshot is stale")
+    void propagateChanged_noneStale() {
+        when(wishlistRepository.findProductIdsWithStaleSnapshots()).thenReturn(Set.of());
+        assertEquals(0, propagator.propagateChanged());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    @DisplayName("Should sweep only on the instance taking the lease, once per safety net delay with invalidation")
+    void sweep_leased() {
+        propagator = new ProductSnapshotPropagator(productService, wishlistRepository, cacheManager, jobLeaseRepository, meterRegistry,
+                true, Duration.ofMinutes(5), Duration.ofHours(6));
+        when(jobLeaseRepository.tryAcquire("productSnapshotSweep", Duration.ofHours(6))).thenReturn(false, true);
+        when(wishlistRepository.findProductIdsWithStaleSnapshots()).thenReturn(Set.of());
+        assertEquals(0, propagator.sweep());
+        verify(wishlistRepository, never()).findProductIdsWithStaleSnapshots();
+        assertEquals(0, propagator.sweep());
+        verify(wishlistRepository, times(1)).findProductIdsWithStaleSnapshots();
+    }
+
+    private Product product(String id) {
+        return Product.builder()
+                .id(id)
+                .name("product " + id)
+                .price(BigDecimal.valueOf(10.0))
+                .description("description " + id)
+                .build();
+    }
+}
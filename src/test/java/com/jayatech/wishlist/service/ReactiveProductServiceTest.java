@@ -0,0 +1,84 @@
+package com.jayatech.wishlist.service;
+
+import com.jayatech.wishlist.config.CacheConfig;
+import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.repository.ReactiveProductRepository;
+import com.jayatech.wishlist.domain.service.ReactiveProductService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveProductServiceTest {
+
+    @InjectMocks
+    private ReactiveProductService productService;
+
+    @Mock
+    private ReactiveProductRepository productRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Test
+    @DisplayName("Should signal product not found")
+    void findById_notFound() {
+        when(productRepository.findById("productId")).thenReturn(Mono.empty());
+        StepVerifier.create(productService.findById("productId"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should serve cached products and fetch the missing ones in concurrent batches")
+    void findAllById_batches() {
+        Cache cache = new ConcurrentMapCache(CacheConfig.PRODUCTS_CACHE);
+        cache.put("p0", Product.builder().id("p0").build());
+        when(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE)).thenReturn(cache);
+        List<String> ids = IntStream.range(0, ReactiveProductService.PRODUCTS_LOOKUP_BATCH + 2).mapToObj(i -> "p" + i).toList();
+        when(productRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Product> found = new ArrayList<>();
+            invocation.<Iterable<String>>getArgument(0).forEach(id -> found.add(Product.builder().id(id).build()));
+            return Flux.fromIterable(found);
+        });
+        StepVerifier.create(productService.findAllById(ids))
+                .assertNext(products -> assertEquals(ids.size(), products.size()))
+                .verifyComplete();
+        verify(productRepository, times(2)).findAllById(anyIterable());
+        assertNotNull(cache.get("p" + ReactiveProductService.PRODUCTS_LOOKUP_BATCH));
+    }
+
+    @Test
+    @DisplayName("Should return the cursor of the next page when the page is full")
+    void findPage() {
+        PageRequest pageable = PageRequest.of(0, 2, Sort.by("id"));
+        when(productRepository.findAllBy(pageable)).thenReturn(Flux.just(
+                Product.builder().id("p1").build(), Product.builder().id("p2").build()));
+        StepVerifier.create(productService.findPage(null, 2))
+                .assertNext(page -> {
+                    assertEquals(2, page.getProducts().size());
+                    assertEquals("p2", page.getNext());
+                })
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,297 @@
+package com.jayatech.wishlist.service;
+
+import com.jayatech.wishlist.config.CacheConfig;
+import com.jayatech.wishlist.domain.exception.ConflictException;
+import com.jayatech.wishlist.domain.exception.RegisteredProductException;
+import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
+import com.jayatech.wishlist.domain.exception.WishlistFoundException;
+import com.jayatech.wishlist.domain.model.Product;
+import com.jayatech.wishlist.domain.model.WishListItem;
+import com.jayatech.wishlist.domain.model.Wishlist;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResult;
+import com.jayatech.wishlist.domain.model.dto.WishlistView;
+import com.jayatech.wishlist.domain.repository.ReactiveWishlistRepository;
+import com.jayatech.wishlist.domain.service.ReactiveProductService;
+import com.jayatech.wishlist.domain.service.ReactiveWishlistService;
+import com.jayatech.wishlist.domain.service.WishlistService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveWishlistServiceTest {
+
+    @InjectMocks
+    private ReactiveWishlistService wishlistService;
+
+    @Mock
+    private ReactiveWishlistRepository wishlistRepository;
+
+    @Mock
+    private ReactiveProductService productService;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static Wishlist wishlist(String wishlistId, Product... products) {
+        List<WishListItem> items = new ArrayList<>();
+        for (Product product : products) {
+            items.add(WishListItem.builder()
+                    .id("item-" + product.getId())
+                    .createdAt(Instant.now())
+                    .product(product)
+                    .build());
+        }
+        return Wishlist.builder()
+                .id(wishlistId)
+                .userId("userId")
+                .createdAt(Instant.now())
+                .wishListItems(items)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should signal wishlist found when the userId already has a wishlist")
+    void createWishlist_foundException() {
+        when(wishlistRepository.insert(any(Wishlist.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key error collection: wishlists index: userId_unique")));
+        StepVerifier.create(wishlistService.saveWishList("userId"))
+                .expectError(WishlistFoundException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should get a wishlist with its product snapshots without product lookups")
+    void findById() {
+        Product first = Product.builder().id("p1").name("first").build();
+        Product second = Product.builder().id("p2").name("second").build();
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Mono.just(wishlist("wishlistId", first, second)));
+        StepVerifier.create(wishlistService.findById("wishlistId"))
+                .assertNext(wishlist -> {
+                    assertEquals(first, wishlist.getWishListItems().get(0).getProduct());
+                    assertEquals(second, wishlist.getWishListItems().get(1).getProduct());
+                })
+                .verifyComplete();
+        verify(productService, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Should signal wishlist not found")
+    void findById_notFound() {
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Mono.empty());
+        StepVerifier.create(wishlistService.findById("wishlistId"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should serve a cached wishlist without querying the database again")
+    void findById_cached() {
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Mono.just(wishlist("wishlistId")));
+        StepVerifier.create(wishlistService.findById("wishlistId").then(wishlistService.findById("wishlistId")))
+                .assertNext(wishlist -> assertEquals("wishlistId", wishlist.getId()))
+                .verifyComplete();
+        verify(wishlistRepository, times(1)).findById("wishlistId");
+    }
+
+    @Test
+    @DisplayName("Should keep the state cached by a removal made while the wishlist was loaded")
+    void findById_concurrentRemoval() {
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        Wishlist loaded = wishlist("wishlistId", Product.builder().id("p1").build());
+        loaded.setVersion(1L);
+        Wishlist removed = wishlist("wishlistId");
+        removed.setVersion(2L);
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.pullItem("wishlistId", "itemId", null)).thenReturn(Mono.just(removed));
+        Mono<Void> removal = wishlistService.removeWishListProduct("wishlistId", "itemId");
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Mono.just(loaded).delaySubscription(removal));
+        StepVerifier.create(wishlistService.findById("wishlistId"))
+                .assertNext(wishlist -> assertEquals(1, wishlist.getWishListItems().size()))
+                .verifyComplete();
+        StepVerifier.create(wishlistService.findById("wishlistId").zipWith(wishlistService.findVersion("wishlistId")))
+                .assertNext(cached -> {
+                    assertEquals(0, cached.getT1().getWishListItems().size());
+                    assertEquals(2L, cached.getT2());
+                })
+                .verifyComplete();
+        verify(wishlistRepository, times(1)).findById("wishlistId");
+    }
+
+    @Test
+    @DisplayName("Should resolve the wishlist of a user once and serve it from the id cache")
+    void findIdByUserId() {
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLIST_IDS_CACHE);
+        when(cacheManager.getCache(CacheConfig.WISHLIST_IDS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findIdByUserId("userId")).thenReturn(Mono.just("wishlistId"));
+        when(wishlistRepository.findIdByUserId("missingUser")).thenReturn(Mono.empty());
+        StepVerifier.create(wishlistService.findIdByUserId("userId").then(wishlistService.findIdByUserId("userId")))
+                .expectNext("wishlistId")
+                .verifyComplete();
+        StepVerifier.create(wishlistService.findIdByUserId("missingUser"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+        verify(wishlistRepository, times(1)).findIdByUserId("userId");
+    }
+
+    @Test
+    @DisplayName("Should read the ids view without the product details and without caching the partial wishlist")
+    void findById_idsView() {
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findWithProductIdsById("wishlistId"))
+                .thenReturn(Mono.just(wishlist("wishlistId", Product.builder().id("p1").build())));
+        when(wishlistRepository.findWithProductIdsById("missingId")).thenReturn(Mono.empty());
+        StepVerifier.create(wishlistService.findById("wishlistId", WishlistView.IDS))
+                .assertNext(wishlist -> assertEquals("p1", wishlist.getWishListItems().get(0).getProduct().getId()))
+                .verifyComplete();
+        StepVerifier.create(wishlistService.findById("missingId", WishlistView.IDS))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+        assertNull(cache.get("wishlistId"));
+        verify(wishlistRepository, never()).findById(anyString());
+    }
+
+    @Test
+    @DisplayName("Should insert a wishlistItem and cache the updated wishlist")
+    void updateWishList() {
+        Product product = Product.builder().id("p1").name("first").build();
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(productService.findById("p1")).thenReturn(Mono.just(product));
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), eq(WishlistService.WISHLIST_MAX_SIZE), isNull()))
+                .thenReturn(Mono.just(wishlist("wishlistId", product)));
+        StepVerifier.create(wishlistService.updateWishList("wishlistId", "p1"))
+                .assertNext(wishlist -> assertEquals(product, wishlist.getWishListItems().get(0).getProduct()))
+                .verifyComplete();
+        assertNotNull(cache.get("wishlistId"));
+    }
+
+    @Test
+    @DisplayName("Should signal registered product when the conditional inclusion is rejected")
+    void updateWishList_duplicateProduct() {
+        Product product = Product.builder().id("p1").name("first").build();
+        when(productService.findById("p1")).thenReturn(Mono.just(product));
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), eq(WishlistService.WISHLIST_MAX_SIZE), isNull()))
+                .thenReturn(Mono.empty());
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Mono.just(wishlist("wishlistId", product)));
+        StepVerifier.create(wishlistService.updateWishList("wishlistId", "p1"))
+                .expectError(RegisteredProductException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should signal a concurrent update when the rejected inclusion passes the validations")
+    void updateWishList_concurrentUpdate() {
+        Product product = Product.builder().id("p1").name("first").build();
+        when(productService.findById("p1")).thenReturn(Mono.just(product));
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), eq(WishlistService.WISHLIST_MAX_SIZE), isNull()))
+                .thenReturn(Mono.empty());
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Mono.just(wishlist("wishlistId")));
+        StepVerifier.create(wishlistService.updateWishList("wishlistId", "p1"))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(ConflictException.class, e);
+                    assertEquals(WishlistService.WISHLIST_CONCURRENT_UPDATE_EXCEPTION_MESSAGE, e.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should subscribe to the inclusion again when a concurrent change rejected it")
+    void updateWishList_retriesConcurrentUpdate() {
+        Product product = Product.builder().id("p1").name("first").build();
+        Wishlist updated = wishlist("wishlistId", product);
+        AtomicInteger attempts = new AtomicInteger();
+        when(productService.findById("p1")).thenReturn(Mono.just(product));
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), eq(WishlistService.WISHLIST_MAX_SIZE), isNull()))
+                .thenReturn(Mono.defer(() -> attempts.incrementAndGet() == 1 ? Mono.empty() : Mono.just(updated)));
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Mono.just(wishlist("wishlistId")));
+        StepVerifier.create(wishlistService.updateWishList("wishlistId", "p1"))
+                .expectNext(updated)
+                .verifyComplete();
+        assertEquals(1, meterRegistry.get("wishlist.update.conflicts").tag("cause", "concurrent").counter().count());
+        assertEquals(1, meterRegistry.get("wishlist.update.retries").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should apply a batch with one write, reporting each entry")
+    void updateWishListItems() {
+        Product stored = Product.builder().id("p1").name("stored").build();
+        Product added = Product.builder().id("p2").name("added").build();
+        Wishlist updated = wishlist("wishlistId", added);
+        when(productService.findAllById(Set.of("p2"))).thenReturn(Mono.just(Map.of("p2", added)));
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Mono.just(wishlist("wishlistId", stored)));
+        when(wishlistRepository.replaceItems(eq("wishlistId"), anyList(), eq(0L))).thenReturn(Mono.just(updated));
+        StepVerifier.create(wishlistService.updateWishListItems("wishlistId", WishlistBatchRequest.builder()
+                        .remove(List.of("item-p1"))
+                        .add(List.of("p2"))
+                        .build(), null))
+                .assertNext(response -> {
+                    assertSame(updated, response.getWishlist());
+                    assertEquals(List.of(WishlistBatchResult.REMOVED, WishlistBatchResult.ADDED),
+                            response.getResults().stream().map(WishlistBatchResult::getStatus).toList());
+                })
+                .verifyComplete();
+        verify(wishlistRepository, times(1)).replaceItems(anyString(), anyList(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should signal a precondition failure on a version the wishlist is no longer on")
+    void removeWishListProduct_versionMismatch() {
+        when(wishlistRepository.pullItem("wishlistId", "itemId", 2L)).thenReturn(Mono.empty());
+        when(wishlistRepository.findVersionById("wishlistId")).thenReturn(Mono.just(3L));
+        StepVerifier.create(wishlistService.removeWishListProduct("wishlistId", "itemId", 2L))
+                .expectErrorMessage(WishlistService.WISHLIST_VERSION_MISMATCH_EXCEPTION_MESSAGE)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should signal wishlistItem not found when the item is not on the wishlist")
+    void removeWishListProduct_notFound() {
+        when(wishlistRepository.pullItem("wishlistId", "itemId", null)).thenReturn(Mono.empty());
+        when(wishlistRepository.existsById("wishlistId")).thenReturn(Mono.just(true));
+        StepVerifier.create(wishlistService.removeWishListProduct("wishlistId", "itemId"))
+                .expectErrorMessage(WishlistService.WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should check several products on the wishlist with one projected lookup")
+    void checkProducts() {
+        when(wishlistRepository.findProductIdsById("wishlistId")).thenReturn(Mono.just(Set.of("p1")));
+        StepVerifier.create(wishlistService.checkProducts("wishlistId", List.of("p1", "p2")))
+                .expectNext(Map.of("p1", true, "p2", false))
+                .verifyComplete();
+        verify(wishlistRepository, never()).findItemsByProductId(anyString(), anyString());
+    }
+}
@@ -1,5 +1,8 @@
 package com.jayatech.wishlist.service;
 
+import com.jayatech.wishlist.config.CacheConfig;
+import com.jayatech.wishlist.domain.exception.ConflictException;
+import com.jayatech.wishlist.domain.exception.PreconditionFailedException;
 import com.jayatech.wishlist.domain.exception.RegisteredProductException;
 import com.jayatech.wishlist.domain.exception.ResourceNotFoundException;
 import com.jayatech.wishlist.domain.exception.WishlistFoundException;
@@ -8,15 +11,28 @@ import com.jayatech.wishlist.domain.model.Product;
 import com.jayatech.wishlist.domain.model.WishListItem;
 import com.jayatech.wishlist.domain.model.Wishlist;
 import com.jayatech.wishlist.domain.model.dto.ProductCheckResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchRequest;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResponse;
+import com.jayatech.wishlist.domain.model.dto.WishlistBatchResult;
+import com.jayatech.wishlist.domain.model.dto.WishlistView;
 import com.jayatech.wishlist.domain.repository.WishlistRepository;
 import com.jayatech.wishlist.domain.service.ProductService;
+import com.jayatech.wishlist.domain.service.VersionedWishlistCache;
 import com.jayatech.wishlist.domain.service.WishlistService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.DuplicateKeyException;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -25,6 +41,11 @@ import java.util.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +60,12 @@ class WishlistServiceTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private CacheManager cacheManager;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Test
     @DisplayName("Should create a wishlist")
     void createWishlist() {
@@ -51,8 +78,9 @@ class WishlistServiceTest {
                 .updatedAt(null)
                 .wishListItems(Collections.emptyList())
                 .build();
-        when(wishlistRepository.save(any(Wishlist.class))).thenReturn(wishlist);
+        when(wishlistRepository.insert(any(Wishlist.class))).thenReturn(wishlist);
         Wishlist savedWishlist = wishlistService.saveWishList(userId);
+        verify(wishlistRepository, never()).findByUserId(anyString());
         assertEquals(wishlist, savedWishlist);
         assertEquals(userId, savedWishlist.getUserId());
         assertEquals(0, savedWishlist.getWishListItems().size());
@@ -68,11 +96,12 @@ class WishlistServiceTest {
                 .createdAt(Instant.now())
                 .wishListItems(Collections.emptyList())
                 .build();
-        when(wishlistRepository.save(any(Wishlist.class))).thenReturn(savedWishlist);
+        when(wishlistRepository.insert(any(Wishlist.class)))
+                .thenReturn(savedWishlist)
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error collection: wishlists index: userId_unique"));
         Wishlist result = wishlistService.saveWishList(userId);
         assertNotNull(result);
         assertEquals(userId, result.getUserId());
-        when(wishlistRepository.findByUserId(userId)).thenReturn(Optional.of(savedWishlist));
         assertThrows(WishlistFoundException.class, () -> wishlistService.saveWishList(userId));
     }
 
@@ -106,11 +135,303 @@ class WishlistServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> wishlistService.findById(id));
     }
 
+    @Test
+    @DisplayName("Should record the size of the wishlists read")
+    void findById_recordsSize() {
+        String id = "wishlistId";
+        Product product = Product.builder().id("productId").build();
+        Wishlist wishlist = Wishlist.builder()
+                .id(id)
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder()
+                        .id("wishListItemId")
+                        .createdAt(Instant.now())
+                        .product(product)
+                        .build())))
+                .build();
+        when(wishlistRepository.findById(id)).thenReturn(Optional.of(wishlist));
+        wishlistService.findById(id);
+        DistributionSummary summary = meterRegistry.get("wishlist.size").summary();
+        assertEquals(1, summary.count());
+        assertEquals(1, summary.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should serve a cached wishlist without querying the database again")
+    void findById_cached() {
+        String id = "wishlistId";
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        Wishlist wishlist = Wishlist.builder()
+                .id(id)
+                .userId("userId")
+                .createdAt(Instant.now())
+                .wishListItems(new ArrayList<>())
+                .build();
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findById(id)).thenReturn(Optional.of(wishlist));
+        Wishlist first = wishlistService.findById(id);
+        first.getWishListItems().add(WishListItem.builder().id("changedByCaller").build());
+        Wishlist second = wishlistService.findById(id);
+        verify(wishlistRepository, times(1)).findById(id);
+        assertEquals(id, second.getId());
+        assertEquals(0, second.getWishListItems().size());
+    }
+
+    @Test
+    @DisplayName("Should read the version of a cached wishlist, or else project only the version")
+    void findVersion() {
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        cache.put("cachedId", Wishlist.builder().id("cachedId").wishListItems(new ArrayList<>()).version(4L).build());
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findVersionById("storedId")).thenReturn(Optional.of(2L));
+        when(wishlistRepository.findVersionById("missingId")).thenReturn(Optional.empty());
+        assertEquals(4L, wishlistService.findVersion("cachedId"));
+        assertEquals(2L, wishlistService.findVersion("storedId"));
+        assertThrows(ResourceNotFoundException.class, () -> wishlistService.findVersion("missingId"));
+        verify(wishlistRepository, never()).findVersionById("cachedId");
+        verify(wishlistRepository, never()).findById(anyString());
+    }
+
+    @Test
+    @DisplayName("Should resolve the wishlist of a user from the id cache, or else project only the id")
+    void findIdByUserId() {
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLIST_IDS_CACHE);
+        cache.put("cachedUser", "cachedId");
+        when(cacheManager.getCache(CacheConfig.WISHLIST_IDS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findIdByUserId("storedUser")).thenReturn(Optional.of("storedId"));
+        when(wishlistRepository.findIdByUserId("missingUser")).thenReturn(Optional.empty());
+        assertEquals("cachedId", wishlistService.findIdByUserId("cachedUser"));
+        assertEquals("storedId", wishlistService.findIdByUserId("storedUser"));
+        assertEquals("storedId", wishlistService.findIdByUserId("storedUser"));
+        assertThrows(ResourceNotFoundException.class, () -> wishlistService.findIdByUserId("missingUser"));
+        verify(wishlistRepository, never()).findIdByUserId("cachedUser");
+        verify(wishlistRepository).findIdByUserId("storedUser");
+        verify(wishlistRepository, never()).findByUserId(anyString());
+        assertNull(cache.get("missingUser"));
+    }
+
+    @Test
+    @DisplayName("Should read the ids view without the product details and without caching the partial wishlist")
+    void findById_idsView() {
+        String id = "wishlistId";
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        Wishlist wishlist = Wishlist.builder()
+                .id(id)
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder()
+                        .id("wishListItemId")
+                        .product(Product.builder().id("productId").build())
+                        .build())))
+                .build();
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findWithProductIdsById(id)).thenReturn(Optional.of(wishlist));
+        when(wishlistRepository.findWithProductIdsById("missingId")).thenReturn(Optional.empty());
+        assertSame(wishlist, wishlistService.findById(id, WishlistView.IDS));
+        assertNull(cache.get(id));
+        assertThrows(ResourceNotFoundException.class, () -> wishlistService.findById("missingId", WishlistView.IDS));
+        verify(wishlistRepository, never()).findById(anyString());
+        assertEquals(1, meterRegistry.get("wishlist.size").summary().count());
+    }
+
+    @Test
+    @DisplayName("Should serve the ids view from a cached wishlist, and the other views as the full wishlist")
+    void findById_views_cached() {
+        String id = "wishlistId";
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        Wishlist wishlist = Wishlist.builder()
+                .id(id)
+                .userId("userId")
+                .createdAt(Instant.now())
+                .wishListItems(new ArrayList<>())
+                .build();
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findById(id)).thenReturn(Optional.of(wishlist));
+        assertEquals(id, wishlistService.findById(id, WishlistView.COMPACT).getId());
+        assertEquals(id, wishlistService.findById(id, WishlistView.IDS).getId());
+        verify(wishlistRepository, times(1)).findById(id);
+        verify(wishlistRepository, never()).findWithProductIdsById(anyString());
+    }
+
+    @Test
+    @DisplayName("Should cache the wishlist id of the user on creation")
+    void createWishlist_cachesId() {
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLIST_IDS_CACHE);
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(null);
+        when(cacheManager.getCache(CacheConfig.WISHLIST_IDS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.insert(any(Wishlist.class))).thenReturn(Wishlist.builder()
+                .id("wishlistId")
+                .userId("userId")
+                .wishListItems(Collections.emptyList())
+                .build());
+        wishlistService.saveWishList("userId");
+        assertEquals("wishlistId", wishlistService.findIdByUserId("userId"));
+        verify(wishlistRepository, never()).findIdByUserId(anyString());
+    }
+
+    @Test
+    @DisplayName("Should check products against a cached wishlist without projected lookups")
+    void checkProducts_cached() {
+        String wishlistId = "wishlistId";
+        String productId = "productId";
+        Product product = Product.builder().id(productId).name("product name").build();
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        cache.put(wishlistId, Wishlist.builder()
+                .id(wishlistId)
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder()
+                        .id("wishListItemId")
+                        .createdAt(Instant.now())
+                        .product(product)
+                        .build())))
+                .build());
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        ProductCheckResponse response = wishlistService.checkProduct(wishlistId, productId);
+        Map<String, Boolean> checked = wishlistService.checkProducts(wishlistId, List.of(productId, "otherId"));
+        assertEquals(product, response.getProduct());
+        assertEquals(Map.of(productId, true, "otherId", false), checked);
+        verify(wishlistRepository, never()).findItemsByProductId(anyString(), anyString());
+        verify(wishlistRepository, never()).findProductIdsById(anyString());
+    }
+
+    @Test
+    @DisplayName("Should replace the cached wishlist with the state written by an inclusion or a removal")
+    void mutations_updateCache() {
+        String wishlistId = "wishlistId";
+        String productId = "productId";
+        Product product = Product.builder().id(productId).name("product name").build();
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        cache.put(wishlistId, Wishlist.builder().id(wishlistId).wishListItems(new ArrayList<>()).build());
+        Wishlist updated = Wishlist.builder()
+                .id(wishlistId)
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder()
+                        .id("wishListItemId")
+                        .createdAt(Instant.now())
+                        .product(product)
+                        .build())))
+                .version(1L)
+                .build();
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(productService.findById(productId)).thenReturn(product);
+        when(wishlistRepository.pushItem(eq(wishlistId), any(WishListItem.class), eq(WishlistService.WISHLIST_MAX_SIZE), isNull()))
+                .thenReturn(Optional.of(updated));
+        when(wishlistRepository.pullItem(wishlistId, "wishListItemId", null)).thenReturn(Optional.of(Wishlist.builder()
+                .id(wishlistId).wishListItems(new ArrayList<>()).version(2L).build()));
+
+        wishlistService.updateWishList(wishlistId, productId);
+        Wishlist cached = cache.get(wishlistId, Wishlist.class);
+        assertNotNull(cached);
+        assertEquals(product, cached.getWishListItems().get(0).getProduct());
+
+        wishlistService.removeWishListProduct(wishlistId, "wishListItemId");
+        cached = cache.get(wishlistId, Wishlist.class);
+        assertNotNull(cached);
+        assertEquals(0, cached.getWishListItems().size());
+        assertEquals(2L, wishlistService.findVersion(wishlistId));
+    }
+
+    @Test
+    @DisplayName("Should keep the state cached by a removal made while the wishlist was loaded")
+    void findById_concurrentRemoval() {
+        String wishlistId = "wishlistId";
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        Wishlist loaded = Wishlist.builder()
+                .id(wishlistId)
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder().id("wishListItemId").build())))
+                .version(1L)
+                .build();
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.pullItem(wishlistId, "wishListItemId", null)).thenReturn(Optional.of(Wishlist.builder()
+                .id(wishlistId).wishListItems(new ArrayList<>()).version(2L).build()));
+        when(wishlistRepository.findById(wishlistId)).thenAnswer(invocation -> {
+            wishlistService.removeWishListProduct(wishlistId, "wishListItemId");
+            return Optional.of(loaded);
+        });
+
+        assertEquals(1, wishlistService.findById(wishlistId).getWishListItems().size());
+        assertEquals(0, wishlistService.findById(wishlistId).getWishListItems().size());
+        assertEquals(2L, wishlistService.findVersion(wishlistId));
+        verify(wishlistRepository, times(1)).findById(wishlistId);
+    }
+
+    @Test
+    @DisplayName("Should not cache a state older than the version invalidated while it was loaded")
+    void findById_invalidatedWhileLoading() {
+        String wishlistId = "wishlistId";
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(wishlistRepository.findById(wishlistId)).thenAnswer(invocation -> {
+            VersionedWishlistCache.invalidate(cache, wishlistId, 2L);
+            return Optional.of(Wishlist.builder().id(wishlistId).wishListItems(new ArrayList<>()).version(1L).build());
+        }).thenReturn(Optional.of(Wishlist.builder().id(wishlistId).wishListItems(new ArrayList<>()).version(2L).build()));
+
+        assertEquals(1L, wishlistService.findById(wishlistId).getVersion());
+        assertEquals(2L, wishlistService.findById(wishlistId).getVersion());
+        assertEquals(2L, wishlistService.findById(wishlistId).getVersion());
+        assertEquals(2L, wishlistService.findVersion(wishlistId));
+        verify(wishlistRepository, times(2)).findById(wishlistId);
+    }
+
+    @Test
+    @DisplayName("Should keep the newest state cached when inclusions finish out of order")
+    void updateWishList_outOfOrder() {
+        String wishlistId = "wishlistId";
+        Product product = Product.builder().id("productId").build();
+        Cache cache = new ConcurrentMapCache(CacheConfig.WISHLISTS_CACHE);
+        when(cacheManager.getCache(CacheConfig.WISHLISTS_CACHE)).thenReturn(cache);
+        when(productService.findById("productId")).thenReturn(product);
+        when(wishlistRepository.pushItem(eq(wishlistId), any(WishListItem.class), eq(WishlistService.WISHLIST_MAX_SIZE), isNull()))
+                .thenReturn(Optional.of(Wishlist.builder().id(wishlistId).wishListItems(new ArrayList<>()).version(3L).build()))
+                .thenReturn(Optional.of(Wishlist.builder().id(wishlistId).wishListItems(new ArrayList<>()).version(2L).build()));
+
+        wishlistService.updateWishList(wishlistId, "productId");
+        wishlistService.updateWishList(wishlistId, "productId");
+        assertEquals(3L, wishlistService.findVersion(wishlistId));
+    }
+
+    @Test
+    @DisplayName("Should read several wishlists with their product snapshots without product lookups")
+    void findAllById_productSnapshots() {
+        Product product1 = Product.builder()
+                .id("productId1")
+                .name("product name 1")
+                .price(BigDecimal.valueOf(10.0))
+                .description("product description 1")
+                .build();
+        Product product2 = Product.builder()
+                .id("productId2")
+                .name("product name 2")
+                .price(BigDecimal.valueOf(20.0))
+                .description("product description 2")
+                .build();
+        Wishlist wishlist1 = Wishlist.builder()
+                .id("wishlistId1")
+                .userId("userId1")
+                .createdAt(Instant.now())
+                .wishListItems(new ArrayList<>(List.of(
+                        WishListItem.builder().id("item1").createdAt(Instant.ofEpochMilli(1000)).product(product1).build(),
+                        WishListItem.builder().id("item2").createdAt(Instant.ofEpochMilli(2000)).product(product2).build())))
+                .build();
+        Wishlist wishlist2 = Wishlist.builder()
+                .id("wishlistId2")
+                .userId("userId2")
+                .createdAt(Instant.now())
+                .wishListItems(new ArrayList<>(List.of(
+                        WishListItem.builder().id("item3").createdAt(Instant.ofEpochMilli(3000)).product(product1).build())))
+                .build();
+        List<String> ids = List.of("wishlistId1", "wishlistId2");
+        when(wishlistRepository.findAllById(ids)).thenReturn(List.of(wishlist1, wishlist2));
+
+        List<Wishlist> result = wishlistService.findAllById(ids);
+
+        verify(productService, never()).findAllById(anyCollection());
+        verify(productService, never()).findById(anyString());
+        assertEquals(product1, result.get(0).getWishListItems().get(0).getProduct());
+        assertEquals(product2, result.get(0).getWishListItems().get(1).getProduct());
+        assertEquals(product1, result.get(1).getWishListItems().get(0).getProduct());
+    }
 
     @Test
     @DisplayName("Should insert a wishlistItem in a wishlist")
     void updateWishList() {
         String userId = "userId";
+        String wishlistId = "wishlistId";
         String productId = "productId";
         Product product = Product.builder()
                 .id(productId)
@@ -119,22 +440,27 @@ class WishlistServiceTest {
                 .price(BigDecimal.valueOf(10.0))
                 .build();
         Wishlist wishlist = Wishlist.builder()
-                .id("wishlistId")
+                .id(wishlistId)
                 .userId(userId)
                 .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(new ArrayList<>())
+                .updatedAt(Instant.now())
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder()
+                        .id("wishListItemId")
+                        .createdAt(Instant.now())
+                        .product(product)
+                        .build())))
                 .build();
         when(productService.findById(productId)).thenReturn(product);
-        when(wishlistRepository.save(any(Wishlist.class))).thenReturn(wishlist);
-        Wishlist updatedWishlist = wishlistService.updateWishList(wishlist, productId);
-        verify(wishlistRepository).save(any(Wishlist.class));
+        when(wishlistRepository.pushItem(eq(wishlistId), any(WishListItem.class), eq(WishlistService.WISHLIST_MAX_SIZE), isNull()))
+                .thenReturn(Optional.of(wishlist));
+        Wishlist updatedWishlist = wishlistService.updateWishList(wishlistId, productId);
+        verify(wishlistRepository).pushItem(eq(wishlistId), any(WishListItem.class), eq(WishlistService.WISHLIST_MAX_SIZE), isNull());
+        verify(wishlistRepository, never()).save(any(Wishlist.class));
         assertEquals(product, updatedWishlist.getWishListItems().get(0).getProduct());
-        System.out.println(updatedWishlist.getWishListItems().get(0).getProduct());
         assertEquals(1, updatedWishlist.getWishListItems().size());
         assertEquals(productId, updatedWishlist.getWishListItems().get(0)
                 .getProduct().getId());
-        assertNotNull(wishlist.getUpdatedAt());
+        assertNotNull(updatedWishlist.getUpdatedAt());
     }
 
     @Test
@@ -155,40 +481,37 @@ class WishlistServiceTest {
                 .wishListItems(Collections.singletonList(WishListItem.builder()
                         .id("wishListItemId")
                         .createdAt(Instant.now())
-                        .product(product)
+                        .product(Product.builder().id(productId).build())
                         .build()))
                 .build();
         when(productService.findById(productId)).thenReturn(product);
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), anyInt(), any())).thenReturn(Optional.empty());
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Optional.of(wishlist));
         assertEquals(wishlist.getWishListItems().get(0).getProduct().getId(), productId);
         assertThrows(RegisteredProductException.class, () ->
-                wishlistService.updateWishList(wishlist, productId));
+                wishlistService.updateWishList("wishlistId", productId));
     }
 
     @Test
     @DisplayName("Should throw registered product exception when insert product that does not exist")
     void updateWishlist_product_not_found() {
         String productId = "productId2";
-        Product product = Product.builder()
-                .id("productId")
-                .name("product name")
-                .description("product description")
-                .price(BigDecimal.valueOf(10.0))
-                .build();
-        Wishlist wishlist = Wishlist.builder()
-                .id("wishlistId")
-                .userId("userId")
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id("wishListItemId")
-                        .createdAt(Instant.now())
-                        .product(product)
-                        .build()))
-                .build();
         when(productService.findById(productId)).thenThrow(ResourceNotFoundException.class);
-        assertNotEquals(product.getId(), productId);
         assertThrows(ResourceNotFoundException.class, () ->
-                wishlistService.updateWishList(wishlist, productId));
+                wishlistService.updateWishList("wishlistId", productId));
+        verify(wishlistRepository, never()).pushItem(anyString(), any(WishListItem.class), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should throw wishlist not found exception when insert a product in a wishlist that does not exist")
+    void updateWishlist_wishlist_not_found() {
+        String productId = "productId";
+        when(productService.findById(productId)).thenReturn(Product.builder().id(productId).build());
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), anyInt(), any())).thenReturn(Optional.empty());
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Optional.empty());
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+                wishlistService.updateWishList("wishlistId", productId));
+        assertEquals(WishlistService.WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE, exception.getMessage());
     }
 
     @Test
@@ -202,9 +525,6 @@ class WishlistServiceTest {
                     .createdAt(Instant.now())
                     .product(Product.builder()
                             .id("productId" + i)
-                            .name("product name" + i)
-                            .description("product description" + i)
-                            .price(BigDecimal.valueOf(10.0 + i))
                             .build())
                     .build());
         }
@@ -223,68 +543,235 @@ class WishlistServiceTest {
                 .description("product description")
                 .price(BigDecimal.valueOf(10.0))
                 .build());
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), anyInt(), any())).thenReturn(Optional.empty());
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Optional.of(wishlist));
         assertEquals(WishlistService.WISHLIST_MAX_SIZE, wishlist.getWishListItems().size());
         assertThrows(WishlistMaxSizeException.class, () ->
-                wishlistService.updateWishList(wishlist, productId));
+                wishlistService.updateWishList("wishlistId", productId));
     }
 
     @Test
     @DisplayName("Should delete a wishlistItem")
     void deleteWishlistItem() {
         String wishlistId = "wishlistID";
-        String userId = "userid1";
         String wishlistItemId = "wishListItemId";
-        WishListItem wishListItem = WishListItem.builder()
-                .id(wishlistItemId)
-                .createdAt(Instant.now())
-                .product(Product.builder()
-                        .id("productId")
-                        .name("product name test")
-                        .price(BigDecimal.valueOf(11.5))
-                        .description("product test description")
-                        .build())
-                .build();
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId)
-                .userId(userId)
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(Collections.singletonList(wishListItem))
-                .build();
 
-        when(wishlistRepository.save(any(Wishlist.class))).thenReturn(wishlist);
-        wishlistService.removeWishListProduct(wishlist, wishlistItemId);
-        assertTrue(wishlist.getWishListItems().isEmpty());
-        assertNotNull(wishlist.getUpdatedAt());
+        when(wishlistRepository.pullItem(wishlistId, wishlistItemId, null)).thenReturn(Optional.of(Wishlist.builder()
+                .id(wishlistId).wishListItems(new ArrayList<>()).build()));
+        assertDoesNotThrow(() -> wishlistService.removeWishListProduct(wishlistId, wishlistItemId));
+        verify(wishlistRepository).pullItem(wishlistId, wishlistItemId, null);
+        verify(wishlistRepository, never()).save(any(Wishlist.class));
     }
 
     @Test
     @DisplayName("Should throw wishlistItem not found when deleting item without being in a list")
     void removeWishListProduct_notFound() {
         String wishlistId = "wishlistId";
-        String wishListItemId = "wishListItemId";
-        Wishlist wishlist = Wishlist.builder()
-                .id(wishlistId).userId("userId1")
-                .createdAt(Instant.now())
-                .updatedAt(null)
-                .wishListItems(Collections.singletonList(WishListItem.builder()
-                        .id(wishListItemId)
+
+        when(wishlistRepository.pullItem(wishlistId, "wishListItemId2", null)).thenReturn(Optional.empty());
+        when(wishlistRepository.existsById(wishlistId)).thenReturn(true);
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+                wishlistService.removeWishListProduct(wishlistId, "wishListItemId2"));
+        assertEquals(WishlistService.WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE, exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should throw wishlist not found when deleting item of a wishlist that does not exist")
+    void removeWishListProduct_wishlistNotFound() {
+        String wishlistId = "wishlistId";
+
+        when(wishlistRepository.pullItem(wishlistId, "wishListItemId", null)).thenReturn(Optional.empty());
+        when(wishlistRepository.existsById(wishlistId)).thenReturn(false);
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+                wishlistService.removeWishListProduct(wishlistId, "wishListItemId"));
+        assertEquals(WishlistService.WISHLIST_NOT_FOUND_EXCEPTION_MESSAGE, exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should try the inclusion again when a concurrent change rejected it")
+    void updateWishList_retriesConcurrentUpdate() {
+        String productId = "productId";
+        Product product = Product.builder().id(productId).name("product name").build();
+        Wishlist current = Wishlist.builder().id("wishlistId").wishListItems(new ArrayList<>()).version(5L).build();
+        Wishlist updated = Wishlist.builder().id("wishlistId").version(6L)
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder().id("itemId").product(product).build())))
+                .build();
+        when(productService.findById(productId)).thenReturn(product);
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), anyInt(), isNull()))
+                .thenReturn(Optional.empty(), Optional.of(updated));
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Optional.of(current));
+        assertSame(updated, wishlistService.updateWishList("wishlistId", productId));
+        verify(wishlistRepository, times(2)).pushItem(eq("wishlistId"), any(WishListItem.class), anyInt(), isNull());
+        assertEquals(1, meterRegistry.get("wishlist.update.conflicts").tag("cause", "concurrent").counter().count());
+        assertEquals(1, meterRegistry.get("wishlist.update.retries").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should give up on an inclusion that keeps conflicting after the maximum attempts")
+    void updateWishList_concurrentUpdateExhausted() {
+        String productId = "productId";
+        when(productService.findById(productId)).thenReturn(Product.builder().id(productId).build());
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), anyInt(), isNull())).thenReturn(Optional.empty());
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Optional.of(
+                Wishlist.builder().id("wishlistId").wishListItems(new ArrayList<>()).build()));
+        ConflictException exception = assertThrows(ConflictException.class, () ->
+                wishlistService.updateWishList("wishlistId", productId));
+        assertEquals(WishlistService.WISHLIST_CONCURRENT_UPDATE_EXCEPTION_MESSAGE, exception.getMessage());
+        verify(wishlistRepository, times(WishlistService.WISHLIST_UPDATE_MAX_ATTEMPTS))
+                .pushItem(eq("wishlistId"), any(WishListItem.class), anyInt(), isNull());
+        assertEquals(WishlistService.WISHLIST_UPDATE_MAX_ATTEMPTS - 1, meterRegistry.get("wishlist.update.retries").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should reject without retrying an inclusion on a version the wishlist is no longer on")
+    void updateWishList_versionMismatch() {
+        String productId = "productId";
+        when(productService.findById(productId)).thenReturn(Product.builder().id(productId).build());
+        when(wishlistRepository.pushItem(eq("wishlistId"), any(WishListItem.class), anyInt(), eq(2L))).thenReturn(Optional.empty());
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Optional.of(
+                Wishlist.builder().id("wishlistId").wishListItems(new ArrayList<>()).version(3L).build()));
+        PreconditionFailedException exception = assertThrows(PreconditionFailedException.class, () ->
+                wishlistService.updateWishList("wishlistId", productId, 2L));
+        assertEquals(WishlistService.WISHLIST_VERSION_MISMATCH_EXCEPTION_MESSAGE, exception.getMessage());
+        verify(wishlistRepository, times(1)).pushItem(anyString(), any(WishListItem.class), anyInt(), any());
+        assertEquals(1, meterRegistry.get("wishlist.update.conflicts").tag("cause", "version").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should apply a batch with one product lookup and one write, reporting each entry")
+    void updateWishListItems() {
+        Product stored = Product.builder().id("p1").name("stored").build();
+        Product added = Product.builder().id("p2").name("added").build();
+        Wishlist current = Wishlist.builder().id("wishlistId").version(4L)
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder().id("i1").createdAt(Instant.now()).product(stored).build())))
+                .build();
+        Wishlist updated = Wishlist.builder().id("wishlistId").version(5L).wishListItems(new ArrayList<>()).build();
+        when(productService.findAllById(Set.of("p2", "missing"))).thenReturn(Map.of("p2", added));
+        when(wishlistRepository.findById("wishlistId")).thenReturn(Optional.of(current));
+        when(wishlistRepository.replaceItems(eq("wishlistId"), anyList(), eq(4L))).thenReturn(Optional.of(updated));
+        WishlistBatchResponse response = wishlistService.updateWishListItems("wishlistId", WishlistBatchRequest.builder()
+                .remove(List.of("i1", "ghost"))
+                .add(List.of("p2", "p2", "missing"))
+                .build(), null);
+        assertSame(updated, response.getWishlist());
+        assertEquals(List.of(WishlistBatchResult.REMOVED, WishlistService.WISHLIST_ITEM_NOT_FOUND_EXCEPTION_MESSAGE,
+                        WishlistBatchResult.ADDED, WishlistService.REGISTERED_PRODUCT_EXCEPTION_MESSAGE,
+                        ProductService.PRODUCT_NOT_FOUND_EXCEPTION_MESSAGE),
+                response.getResults().stream().map(WishlistBatchResult::getStatus).toList());
+        verify(wishlistRepository).replaceItems(eq("wishlistId"), argThat(items -> items.size() == 1
+                && items.get(0).getProduct() == added
+                && items.get(0).getId().equals(response.getResults().get(2).getItemId())), eq(4L));
+        verify(productService, never()).findById(anyString());
+        verify(wishlistRepository, never()).pushItem(anyString(), any(WishListItem.class), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should apply a batch again to the new state when another change got in first")
+    void updateWishListItems_retriesConcurrentUpdate() {
+        Product product = Product.builder().id("p1").build();
+        Wishlist updated = Wishlist.builder().id("wishlistId").version(3L).wishListItems(new ArrayList<>()).build();
+        when(productService.findAllById(Set.of("p1"))).thenReturn(Map.of("p1", product));
+        when(wishlistRepository.findById("wishlistId")).thenReturn(
+                Optional.of(Wishlist.builder().id("wishlistId").version(1L).wishListItems(new ArrayList<>()).build()),
+                Optional.of(Wishlist.builder().id("wishlistId").version(2L).wishListItems(new ArrayList<>()).build()));
+        when(wishlistRepository.replaceItems(eq("wishlistId"), anyList(), eq(1L))).thenReturn(Optional.empty());
+        when(wishlistRepository.replaceItems(eq("wishlistId"), anyList(), eq(2L))).thenReturn(Optional.of(updated));
+        WishlistBatchResponse response = wishlistService.updateWishListItems("wishlistId",
+                WishlistBatchRequest.builder().add(List.of("p1")).build(), null);
+        assertSame(updated, response.getWishlist());
+        verify(productService, times(1)).findAllById(anyCollection());
+        assertEquals(1, meterRegistry.get("wishlist.update.conflicts").tag("cause", "concurrent").counter().count());
+        assertEquals(1, meterRegistry.get("wishlist.update.retries").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should reject a batch adding more items than a wishlist holds before any lookup")
+    void updateWishListItems_maxSize() {
+        List<String> productIds = new ArrayList<>();
+        for (int i = 0; i <= WishlistService.WISHLIST_MAX_SIZE; i++) {
+            productIds.add("p" + i);
+        }
+        WishlistBatchRequest batch = WishlistBatchRequest.builder().add(productIds).build();
+        assertThrows(WishlistMaxSizeException.class, () -> wishlistService.updateWishListItems("wishlistId", batch, null));
+        verifyNoInteractions(productService, wishlistRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a removal on a version the wishlist is no longer on")
+    void removeWishListProduct_versionMismatch() {
+        when(wishlistRepository.pullItem("wishlistId", "wishListItemId", 2L)).thenReturn(Optional.empty());
+        when(wishlistRepository.findVersionById("wishlistId")).thenReturn(Optional.of(3L));
+        assertThrows(PreconditionFailedException.class, () ->
+                wishlistService.removeWishListProduct("wishlistId", "wishListItemId", 2L));
+        verify(wishlistRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    @DisplayName("Should check the product is on the wishlist by its projected item")
+    void checkProduct_byWishlistId() {
+        String wishlistId = "wishlistId";
+        String productId = "productId";
+        Product product = Product.builder()
+                .id(productId)
+                .name("product name")
+                .price(BigDecimal.valueOf(10.0))
+                .description("product description")
+                .build();
+        Wishlist projected = Wishlist.builder()
+                .id(wishlistId)
+                .wishListItems(new ArrayList<>(List.of(WishListItem.builder()
+                        .id("wishListItemId")
                         .createdAt(Instant.now())
-                        .product(Product.builder()
-                                .id("productId")
-                                .name("product name")
-                                .price(BigDecimal.valueOf(10.0))
-                                .description("product description")
-                                .build())
-                        .build()))
+                        .product(product)
+                        .build())))
                 .build();
+        when(wishlistRepository.findItemsByProductId(wishlistId, productId)).thenReturn(Optional.of(projected));
+        ProductCheckResponse result = wishlistService.checkProduct(wishlistId, productId);
+        assertEquals(new ProductCheckResponse(product), result);
+        verify(wishlistRepository, never()).findById(wishlistId);
+        verify(productService, never()).findById(productId);
+    }
 
-        when(wishlistRepository.save(any(Wishlist.class))).thenReturn(wishlist);
-        wishlistService.removeWishListProduct(wishlist, wishListItemId);
-        assertTrue(wishlist.getWishListItems().isEmpty());
-        assertNotNull(wishlist.getUpdatedAt());
+    @Test
+    @DisplayName("Should check the product is not on the wishlist without resolving products")
+    void checkProduct_byWishlistId_notFound() {
+        String wishlistId = "wishlistId";
+        String productId = "productId";
+        Wishlist projected = Wishlist.builder()
+                .id(wishlistId)
+                .build();
+        when(wishlistRepository.findItemsByProductId(wishlistId, productId)).thenReturn(Optional.of(projected));
+        ProductCheckResponse result = wishlistService.checkProduct(wishlistId, productId);
+        assertEquals(new ProductCheckResponse(), result);
+        verify(productService, never()).findAllById(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should throw wishlist not found exception when checking a product")
+    void checkProduct_byWishlistId_wishlistNotFound() {
+        when(wishlistRepository.findItemsByProductId("wishlistId", "productId")).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> wishlistService.checkProduct("wishlistId", "productId"));
+    }
+
+    @Test
+    @DisplayName("Should check several products on the wishlist with one projected lookup")
+    void checkProducts() {
+        String wishlistId = "wishlistId";
+        when(wishlistRepository.findProductIdsById(wishlistId)).thenReturn(Optional.of(Set.of("productId1", "productId3")));
+        Map<String, Boolean> result = wishlistService.checkProducts(wishlistId, List.of("productId1", "productId2", "productId3"));
+        verify(wishlistRepository, times(1)).findProductIdsById(wishlistId);
+        assertEquals(List.of("productId1", "productId2", "productId3"), new ArrayList<>(result.keySet()));
+        assertTrue(result.get("productId1"));
+        assertFalse(result.get("productId2"));
+        assertTrue(result.get("productId3"));
+    }
+
+    @Test
+    @DisplayName("Should throw wishlist not found exception when checking several products")
+    void checkProducts_wishlistNotFound() {
+        when(wishlistRepository.findProductIdsById("wishlistId")).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () ->
-                wishlistService.removeWishListProduct(wishlist, "wishListItemId2"));
+                wishlistService.checkProducts("wishlistId", List.of("productId1")));
     }
 
     @Test